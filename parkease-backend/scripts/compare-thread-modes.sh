@@ -0,0 +1,74 @@
+#!/bin/bash
+
+# Compares throughput and p99 latency of the default (platform thread) mode and the
+# opt-in virtual thread mode under the same load.
+#
+# Requirements: a built jar (mvn clean package -DskipTests), a reachable PostgreSQL with
+# seeded data (same settings as application.yml or DB_URL/DB_USERNAME/DB_PASSWORD), and
+# `hey` (https://github.com/rakyll/hey) on the PATH.
+#
+# Usage: scripts/compare-thread-modes.sh [concurrency] [duration]
+#   CITY=...  SPOT_ID=...  PORT=...  can be set in the environment.
+
+set -e
+
+CONCURRENCY=${1:-400}
+DURATION=${2:-60s}
+PORT=${PORT:-18080}
+CITY=${CITY:-San%20Francisco}
+SPOT_ID=${SPOT_ID:-1}
+JAR=$(ls target/parkease-backend-*.jar 2>/dev/null | grep -v original | head -n 1)
+
+if ! command -v hey &> /dev/null; then
+    echo "Error: hey is not installed (go install github.com/rakyll/hey@latest)"
+    exit 1
+fi
+
+if [ -z "$JAR" ]; then
+    echo "Error: no jar in target/, run 'mvn clean package -DskipTests' first"
+    exit 1
+fi
+
+run_mode() {
+    local mode=$1
+    local profiles=$2
+
+    echo ""
+    echo "== ${mode} (profiles: ${profiles:-default}) =="
+    SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" --server.port=$PORT \
+        --logging.level.com.parkease=WARN --spring.jpa.show-sql=false > "target/${mode}.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+
+    for i in $(seq 1 60); do
+        if curl -sf "http://localhost:${PORT}/api/spots?city=${CITY}" > /dev/null; then
+            break
+        fi
+        sleep 1
+    done
+
+    # Warm up JIT and pools before measuring
+    hey -z 15s -c 50 "http://localhost:${PORT}/api/spots?city=${CITY}" > /dev/null
+
+    for endpoint in "/api/spots?city=${CITY}" "/api/spots/${SPOT_ID}"; do
+        local result
+        result=$(hey -z "$DURATION" -c "$CONCURRENCY" "http://localhost:${PORT}${endpoint}")
+        local rps p99 errors
+        rps=$(echo "$result" | awk '/Requests\/sec/ {print $2}')
+        p99=$(echo "$result" | awk '/99% in/ {print $3}')
+        errors=$(echo "$result" | awk '/^  \[[^2][0-9][0-9]\]/ {sum += $2} END {print sum + 0}')
+        printf "%-10s %-40s %12s req/s   p99 %8ss   non-2xx %s\n" "$mode" "$endpoint" "$rps" "$p99" "$errors" \
+            | tee -a target/thread-modes.txt
+    done
+
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+}
+
+: > target/thread-modes.txt
+run_mode platform "${BASE_PROFILES}"
+run_mode virtual "${BASE_PROFILES:+${BASE_PROFILES},}virtual"
+
+echo ""
+echo "Results written to target/thread-modes.txt (concurrency ${CONCURRENCY}, ${DURATION} per endpoint)"
@@ -0,0 +1,77 @@
+#!/bin/bash
+
+# Measures time from process launch to the first successful /api/spots response.
+#
+# Modes (build the matching artifact first):
+#   standard    mvn clean package -DskipTests              -> target/parkease-backend-1.0.0.jar
+#   fast-start  mvn clean package -Pfast-start -DskipTests -> target/parkease-backend-fast-start.jar + .jsa
+#   native      mvn clean -Pnative native:compile -DskipTests -> target/parkease-backend
+#
+# Requirements: a reachable PostgreSQL (same settings as application.yml, or DB_URL/DB_USERNAME/DB_PASSWORD
+# with BASE_PROFILES=prod).
+#
+# Usage: scripts/measure-cold-start.sh <mode> [runs]
+#   CITY=...  PORT=...  BASE_PROFILES=...  can be set in the environment.
+
+set -e
+
+MODE=${1:?usage: scripts/measure-cold-start.sh <standard|fast-start|native> [runs]}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+CITY=${CITY:-San%20Francisco}
+URL="http://localhost:${PORT}/api/spots?city=${CITY}"
+ARGS="--server.port=$PORT --logging.level.com.parkease=WARN --spring.jpa.show-sql=false"
+
+case "$MODE" in
+    standard)
+        JAR=$(ls target/parkease-backend-*.jar 2>/dev/null | grep -v -e original -e fast-start | head -n 1)
+        [ -n "$JAR" ] || { echo "Error: no jar in target/, run 'mvn clean package -DskipTests' first"; exit 1; }
+        COMMAND="java -jar $JAR $ARGS"
+        ;;
+    fast-start)
+        [ -f target/parkease-backend-fast-start.jsa ] || { echo "Error: run 'mvn clean package -Pfast-start -DskipTests' first"; exit 1; }
+        # Same working directory and jar path as the training run, otherwise the archive is rejected
+        COMMAND="java -XX:SharedArchiveFile=parkease-backend-fast-start.jsa -Dspring.aot.enabled=true \
+            -Dspring.profiles.include=fast-start -jar parkease-backend-fast-start.jar $ARGS"
+        WORKDIR=target
+        ;;
+    native)
+        [ -x target/parkease-backend ] || { echo "Error: run 'mvn clean -Pnative native:compile -DskipTests' first"; exit 1; }
+        COMMAND="target/parkease-backend $ARGS"
+        ;;
+    *)
+        echo "Unknown mode: $MODE"
+        exit 1
+        ;;
+esac
+
+mkdir -p target
+RESULTS=()
+for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    (cd "${WORKDIR:-.}" && SPRING_PROFILES_ACTIVE=$BASE_PROFILES exec $COMMAND) > "target/cold-start-${MODE}.log" 2>&1 &
+    pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 $pid 2>/dev/null; then
+            echo "Error: the application exited, see target/cold-start-${MODE}.log"
+            exit 1
+        fi
+        if [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge 120 ]; then
+            echo "Error: no successful response within 120s, see target/cold-start-${MODE}.log"
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    RESULTS+=("$elapsed")
+    echo "run ${run}: ${elapsed} ms to first /api/spots response"
+
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+done
+
+median=$(printf "%s\n" "${RESULTS[@]}" | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }')
+printf "%-10s median %6s ms over %s runs\n" "$MODE" "$median" "$RUNS" | tee -a target/cold-start.txt
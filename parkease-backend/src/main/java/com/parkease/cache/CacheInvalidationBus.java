@@ -0,0 +1,268 @@
+package com.parkease.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of all nodes in step with writes, using PostgreSQL
+ * LISTEN/NOTIFY on the primary, so no broker is needed.
+ *
+ * {@link #publish} sends {@code pg_notify} on the writing transaction's own connection,
+ * so PostgreSQL delivers the event only if that transaction commits; the local caches are
+ * invalidated after commit as well. Every node listens on one dedicated connection outside
+ * the pool. Events sent while that connection was down are lost, so after a reconnect every
+ * cache is cleared.
+ */
+@Component
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    private static final String NODE_ID = UUID.randomUUID().toString().substring(0, 8);
+
+    private final List<CacheInvalidationHandler> handlers;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final String channel;
+
+    private final String url;
+
+    private final String username;
+
+    private final String password;
+
+    private final int pollTimeoutMillis;
+
+    private final long reconnectDelayMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<InvalidationKind, Counter> receivedCounters = new ConcurrentHashMap<>();
+
+    private final Timer lagTimer;
+
+    private final Counter resyncCounter;
+
+    private volatile boolean running;
+
+    private volatile boolean connected;
+
+    private volatile Connection connection;
+
+    private Thread listener;
+
+    public CacheInvalidationBus(List<CacheInvalidationHandler> handlers,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${cache.invalidation.enabled:true}") boolean enabled,
+                                @Value("${cache.invalidation.channel:parkease_cache}") String channel,
+                                @Value("${spring.datasource.url}") String url,
+                                @Value("${spring.datasource.username}") String username,
+                                @Value("${spring.datasource.password}") String password,
+                                @Value("${cache.invalidation.poll-timeout-ms:10000}") int pollTimeoutMillis,
+                                @Value("${cache.invalidation.reconnect-delay-ms:1000}") long reconnectDelayMillis,
+                                MeterRegistry meterRegistry) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("cache.invalidation.channel must be a plain identifier: " + channel);
+        }
+        this.handlers = handlers;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("cache.invalidation.connected", this, bus -> bus.connected ? 1 : 0)
+                .description("1 while the LISTEN connection is up")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("cache.invalidation.lag")
+                .description("Time from publishing a change on one node to evicting it on another")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("cache.invalidation.resyncs")
+                .description("Full cache clears after the LISTEN connection was lost")
+                .register(meterRegistry);
+    }
+
+    public void publish(InvalidationKind kind, Object key) {
+        String value = String.valueOf(key);
+        if (enabled) {
+            String payload = NODE_ID + ":" + System.currentTimeMillis() + ":" + kind.name() + ":" + value;
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, channel, payload);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(kind, value);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(kind, value);
+            }
+        });
+    }
+
+    /**
+     * {@link #publish} for many keys of one kind, with a single statement however many
+     * keys there are; each key still arrives as an event of its own.
+     */
+    public void publishAll(InvalidationKind kind, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> values = keys.stream().map(String::valueOf).toList();
+        if (enabled) {
+            String prefix = NODE_ID + ":" + System.currentTimeMillis() + ":" + kind.name() + ":";
+            jdbcTemplate.query("SELECT pg_notify(?, ? || key) FROM unnest(?::text[]) AS key",
+                    (ResultSetExtractor<Void>) rs -> null, channel, prefix, values.toArray(new String[0]));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            values.forEach(value -> dispatch(kind, value));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                values.forEach(value -> dispatch(kind, value));
+            }
+        });
+    }
+
+    private void dispatch(InvalidationKind kind, String key) {
+        for (CacheInvalidationHandler handler : handlers) {
+            handler.invalidate(kind, key);
+        }
+    }
+
+    private void resync() {
+        resyncCounter.increment();
+        for (CacheInvalidationHandler handler : handlers) {
+            handler.invalidateAll();
+        }
+    }
+
+    private void listen() {
+        boolean missedEvents = false;
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(url, username, password)) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                connected = true;
+                if (missedEvents) {
+                    resync();
+                }
+                PGConnection pgConnection = listening.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        // A quiet channel and a dead connection look the same until we talk to the server
+                        try (Statement statement = listening.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                // Also how stop() ends a blocked poll; reconnect below unless stopping
+            } finally {
+                connected = false;
+                connection = null;
+            }
+            missedEvents = true;
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split(":", 4);
+        if (parts.length != 4 || parts[0].equals(NODE_ID)) {
+            // Our own events were applied after commit already
+            return;
+        }
+        InvalidationKind kind;
+        try {
+            kind = InvalidationKind.valueOf(parts[2]);
+        } catch (IllegalArgumentException e) {
+            // Sent by a newer version during a rolling deploy
+            return;
+        }
+        dispatch(kind, parts[3]);
+        receivedCounters.computeIfAbsent(kind, k -> Counter.builder("cache.invalidation.received")
+                .tag("kind", k.name().toLowerCase())
+                .register(meterRegistry)).increment();
+        try {
+            lagTimer.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1])), TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException e) {
+            // Not worth failing the eviction over
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                // Closing is all we wanted
+            }
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,19 @@
+package com.parkease.cache;
+
+/**
+ * An in-process cache that has to forget entries when data changes, on this node or on
+ * another one. Implementations are picked up by {@link CacheInvalidationBus}.
+ */
+public interface CacheInvalidationHandler {
+
+    /**
+     * Drops whatever depends on the changed entity. Called after the writing transaction
+     * committed, from a request thread or the bus's listener thread.
+     */
+    void invalidate(InvalidationKind kind, String key);
+
+    /**
+     * Drops everything; used when change events may have been missed.
+     */
+    void invalidateAll();
+}
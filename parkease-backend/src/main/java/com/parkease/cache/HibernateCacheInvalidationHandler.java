@@ -0,0 +1,39 @@
+package com.parkease.cache;
+
+import com.parkease.entity.ParkingSpot;
+import com.parkease.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts second-level cache entries changed on other nodes. Hibernate keeps this node's
+ * own regions current on commit, so here only remote changes really matter.
+ */
+@Component
+public class HibernateCacheInvalidationHandler implements CacheInvalidationHandler {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public HibernateCacheInvalidationHandler(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void invalidate(InvalidationKind kind, String key) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        switch (kind) {
+            case SPOT -> cache.evictEntityData(ParkingSpot.class, Long.valueOf(key));
+            case USER -> {
+                cache.evictEntityData(User.class, Long.valueOf(key));
+                // Also drops "no such user" results for an email that was just registered
+                cache.evictQueryRegion("users-by-email");
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+}
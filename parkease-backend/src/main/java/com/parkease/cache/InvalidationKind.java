@@ -0,0 +1,14 @@
+package com.parkease.cache;
+
+/**
+ * What changed. The key of a {@code SPOT} event is the spot id, of a {@code USER} event
+ * the user id. {@code CITY} (the lower-cased city) means the set of spots a search in that
+ * city returns may have changed; {@code DATES} ({@code first/last}, ISO dates) that a
+ * confirmed reservation now blocks, or no longer blocks, those days.
+ */
+public enum InvalidationKind {
+    SPOT,
+    USER,
+    CITY,
+    DATES
+}
@@ -0,0 +1,83 @@
+package com.parkease.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Explicit timers for the hot paths, tagged by logical endpoint and outcome so the
+ * p99 of a request can be broken down into its parts. Repository calls are timed
+ * by Spring Boot itself under {@code spring.data.repository.invocations}.
+ */
+@Component
+public class ApiMetrics {
+
+    public static final String SUCCESS = "success";
+
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public ApiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T time(String name, String endpoint, Supplier<T> work) {
+        return time(name, endpoint, work, result -> SUCCESS);
+    }
+
+    /**
+     * Times {@code work}; the outcome tag is derived from its result, or is "error" if it throws.
+     */
+    public <T> T time(String name, String endpoint, Supplier<T> work, Function<T, String> outcome) {
+        Timer.Sample sample = Timer.start(registry);
+        String result = ERROR;
+        try {
+            T value = work.get();
+            result = outcome.apply(value);
+            return value;
+        } finally {
+            sample.stop(timer(name, endpoint, result));
+        }
+    }
+
+    /**
+     * Times a stream from subscription until it completes, fails or is cancelled by the client.
+     */
+    public <T> Flux<T> time(String name, String endpoint, Flux<T> work) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return work.doFinally(signal -> sample.stop(timer(name, endpoint,
+                    signal == SignalType.ON_COMPLETE ? SUCCESS : signal == SignalType.CANCEL ? "cancelled" : ERROR)));
+        });
+    }
+
+    public void run(String name, String endpoint, Runnable work) {
+        time(name, endpoint, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public Timer timer(String name, String endpoint, String outcome) {
+        return Timer.builder(name)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void count(String name, String endpoint, String outcome) {
+        Counter.builder(name)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,50 @@
+package com.parkease.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a {@link ConnectionLimitingDataSource} when
+ * {@code datasource.concurrency-limit.enabled} is set (the {@code virtual} profile does this).
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.concurrency-limit.enabled", havingValue = "true")
+public class ConnectionLimitConfig {
+    
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        int permits = environment.getProperty("datasource.concurrency-limit.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeoutMillis = environment.getProperty("datasource.concurrency-limit.acquire-timeout-ms", Long.class, 3000L);
+        
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, permits, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @Bean
+    public MeterBinder connectionLimitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.forEach(dataSource -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limited) {
+                Gauge.builder("datasource.concurrency_limit.available", limited,
+                        ConnectionLimitingDataSource::getAvailablePermits).register(registry);
+                Gauge.builder("datasource.concurrency_limit.waiting", limited,
+                        ConnectionLimitingDataSource::getQueueLength).register(registry);
+            }
+        });
+    }
+}
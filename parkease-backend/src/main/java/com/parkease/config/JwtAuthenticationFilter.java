@@ -1,5 +1,6 @@
 package com.parkease.config;
 
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,23 +25,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
     
+    @Autowired
+    private ApiMetrics apiMetrics;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        try {
-            String jwt = getJwtFromRequest(request);
-            
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt, userDetailsService.loadUserByUsername(jwtUtil.extractUsername(jwt)))) {
+        String jwt = getJwtFromRequest(request);
+        if (StringUtils.hasText(jwt)) {
+            Timer.Sample sample = Timer.start();
+            String outcome = "invalid";
+            try {
                 String username = jwtUtil.extractUsername(jwt);
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (jwtUtil.validateToken(jwt, userDetails)) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    outcome = "valid";
+                }
+            } catch (Exception ex) {
+                outcome = ApiMetrics.ERROR;
+                logger.error("Could not set user authentication in security context", ex);
+            } finally {
+                sample.stop(apiMetrics.timer("parkease.jwt.verification", "jwt_filter", outcome));
             }
-        } catch (Exception ex) {
-            logger.error("Could not set user authentication in security context", ex);
         }
         
         filterChain.doFilter(request, response);
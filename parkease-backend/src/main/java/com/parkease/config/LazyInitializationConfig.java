@@ -0,0 +1,21 @@
+package com.parkease.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the application's own beans eager when {@code spring.main.lazy-initialization} is on
+ * (the {@code fast-start} profile). Controllers, services, repositories and what they depend on,
+ * such as the entity manager factory, the DataSource and Flyway, are still created before the
+ * port opens; actuator endpoints and other infrastructure off the request path are created
+ * when first used.
+ */
+@Configuration
+public class LazyInitializationConfig {
+    
+    @Bean
+    public static LazyInitializationExcludeFilter hotPathBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType.getName().startsWith("com.parkease.");
+    }
+}
@@ -0,0 +1,136 @@
+package com.parkease.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-IP and per-user token bucket limits, configured per route group.
+ * Anonymous requests are limited by client IP, authenticated requests by user id.
+ * Runs inside the security chain right after {@link JwtAuthenticationFilter}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum RouteGroup {
+        AUTH, SEARCH, BOOKING
+    }
+
+    private final boolean enabled;
+
+    private final Map<RouteGroup, RateLimiter> ipLimiters = new EnumMap<>(RouteGroup.class);
+
+    private final Map<RouteGroup, RateLimiter> userLimiters = new EnumMap<>(RouteGroup.class);
+
+    private final Map<RouteGroup, Counter> rejectedCounters = new EnumMap<>(RouteGroup.class);
+
+    private final ScheduledExecutorService evictor;
+
+    public RateLimitFilter(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("rate-limit.enabled", Boolean.class, true);
+        long idleMillis = environment.getProperty("rate-limit.idle-eviction-ms", Long.class, 600_000L);
+
+        for (RouteGroup group : RouteGroup.values()) {
+            String prefix = "rate-limit." + group.name().toLowerCase() + ".";
+            ipLimiters.put(group, new RateLimiter(
+                    environment.getProperty(prefix + "per-ip.capacity", Integer.class, 60),
+                    environment.getProperty(prefix + "per-ip.refill-per-minute", Integer.class, 60),
+                    idleMillis));
+            userLimiters.put(group, new RateLimiter(
+                    environment.getProperty(prefix + "per-user.capacity", Integer.class, 120),
+                    environment.getProperty(prefix + "per-user.refill-per-minute", Integer.class, 120),
+                    idleMillis));
+            rejectedCounters.put(group, Counter.builder("http.rate_limit.rejected")
+                    .tag("group", group.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, idleMillis / 2);
+        evictor.scheduleAtFixedRate(this::evictIdleBuckets, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RouteGroup group = enabled ? resolveGroup(request) : null;
+        if (group != null) {
+            Long userId = currentUserId();
+            long waitNanos = userId != null
+                    ? userLimiters.get(group).tryAcquire(userId, System.nanoTime())
+                    : ipLimiters.get(group).tryAcquire(request.getRemoteAddr(), System.nanoTime());
+            if (waitNanos > 0) {
+                rejectedCounters.get(group).increment();
+                long retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\":\"Too many requests, please retry later\"}");
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private RouteGroup resolveGroup(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            return null;
+        }
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/auth/")) {
+            return RouteGroup.AUTH;
+        }
+        if (path.startsWith("/api/reservations")) {
+            return RouteGroup.BOOKING;
+        }
+        if (path.startsWith("/api/spots") && "GET".equals(method)) {
+            return RouteGroup.SEARCH;
+        }
+        return null;
+    }
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getUserId();
+        }
+        return null;
+    }
+
+    private void evictIdleBuckets() {
+        long now = System.nanoTime();
+        ipLimiters.values().forEach(limiter -> limiter.evictIdle(now));
+        userLimiters.values().forEach(limiter -> limiter.evictIdle(now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+}
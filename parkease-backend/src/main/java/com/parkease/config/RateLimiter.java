@@ -0,0 +1,63 @@
+package com.parkease.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiter backed by one {@link AtomicLong} per key.
+ *
+ * Each bucket stores only its theoretical arrival time (the GCRA form of a token bucket),
+ * so acquiring a token is a single CAS and never takes a lock. Buckets that have been
+ * idle long enough to be full again are dropped by {@link #evictIdle(long)}.
+ */
+public class RateLimiter {
+    
+    private final long emissionIntervalNanos;
+    
+    private final long burstToleranceNanos;
+    
+    private final long idleNanos;
+    
+    private final ConcurrentMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    
+    public RateLimiter(int capacity, int refillPerMinute, long idleMillis) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Rate limit capacity and refill rate must be positive");
+        }
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+    
+    /**
+     * @return 0 if a token was taken, otherwise the number of nanoseconds until one is available
+     */
+    public long tryAcquire(Object key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long tat = bucket.get();
+            long start = tat - nowNanos > 0 ? tat : nowNanos;
+            long waitNanos = start - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+    
+    public void evictIdle(long nowNanos) {
+        long cutoff = nowNanos - idleNanos;
+        buckets.values().removeIf(bucket -> bucket.get() - cutoff < 0);
+    }
+    
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.parkease.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured DataSource with a {@link ReadWriteRoutingDataSource} when
+ * {@code datasource.replica.url} is set. The primary pool is configured from
+ * {@code spring.datasource.*}; the replica pool takes the same Hikari settings, overridable
+ * under {@code datasource.replica.hikari.*}, and its own url and credentials.
+ *
+ * Only the routing DataSource is a bean, so JPA, Flyway and JdbcTemplate keep a single
+ * candidate; writes and migrations always reach the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replica.url:}'.isEmpty()")
+public class ReadReplicaConfig {
+    
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metrics);
+        
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(environment.getRequiredProperty("datasource.replica.url"))
+                .username(environment.getProperty("datasource.replica.username", properties.determineUsername()))
+                .password(environment.getProperty("datasource.replica.password", properties.determinePassword()))
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(metrics);
+        
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(new JdbcTemplate(replica),
+                environment.getProperty("datasource.replica.lag-query", ReplicaLagMonitor.DEFAULT_LAG_QUERY),
+                environment.getProperty("datasource.replica.max-lag-ms", Long.class, 2000L),
+                environment.getProperty("datasource.replica.lag-check-interval-ms", Long.class, 500L));
+        Gauge.builder("datasource.replica.lag_seconds", lagMonitor, ReplicaLagMonitor::getLagSeconds)
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.in_use", lagMonitor, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+                .register(meterRegistry);
+        
+        return new ReadWriteRoutingDataSource(primary, replica, lagMonitor, meterRegistry);
+    }
+}
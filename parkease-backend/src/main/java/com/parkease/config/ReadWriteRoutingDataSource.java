@@ -0,0 +1,91 @@
+package com.parkease.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ *
+ * The transaction manager asks for a connection before it marks the transaction read-only,
+ * so the routing sits behind a {@link LazyConnectionDataSourceProxy}: the physical connection,
+ * and with it the routing decision, is only taken when the first statement runs.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    
+    enum Route {
+        PRIMARY, REPLICA
+    }
+    
+    private final DataSource primary;
+    
+    private final DataSource replica;
+    
+    private final ReplicaLagMonitor lagMonitor;
+    
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        
+        Router router = new Router(lagMonitor,
+                routedCounter(meterRegistry, Route.PRIMARY), routedCounter(meterRegistry, Route.REPLICA));
+        router.setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+    
+    private static Counter routedCounter(MeterRegistry meterRegistry, Route route) {
+        return Counter.builder("datasource.read_only.routed")
+                .tag("target", route.name().toLowerCase())
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lagMonitor.close();
+        for (DataSource pool : new DataSource[]{replica, primary}) {
+            if (pool instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+    
+    private static class Router extends AbstractRoutingDataSource {
+        
+        private final ReplicaLagMonitor lagMonitor;
+        
+        private final Counter routedToPrimary;
+        
+        private final Counter routedToReplica;
+        
+        Router(ReplicaLagMonitor lagMonitor, Counter routedToPrimary, Counter routedToReplica) {
+            this.lagMonitor = lagMonitor;
+            this.routedToPrimary = routedToPrimary;
+            this.routedToReplica = routedToReplica;
+        }
+        
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return Route.PRIMARY;
+            }
+            if (lagMonitor.isReplicaUsable()) {
+                routedToReplica.increment();
+                return Route.REPLICA;
+            }
+            routedToPrimary.increment();
+            return Route.PRIMARY;
+        }
+    }
+}
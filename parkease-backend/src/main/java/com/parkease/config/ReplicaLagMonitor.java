@@ -0,0 +1,77 @@
+package com.parkease.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the replica for its replication lag. While the lag is above {@code maxLagMillis},
+ * or the replica cannot be queried at all, read-only transactions go to the primary.
+ * The replica is considered unusable until the first check has succeeded.
+ */
+public class ReplicaLagMonitor implements Closeable {
+    
+    /**
+     * Streaming replication lag in seconds. A standby that has replayed everything it received
+     * is not lagging even if the primary has been idle, and a server that is not in recovery
+     * (a logical replication subscriber, or a plain copy for local testing) reports zero.
+     */
+    public static final String DEFAULT_LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    
+    private final JdbcTemplate replica;
+    
+    private final String lagQuery;
+    
+    private final long maxLagMillis;
+    
+    private final ScheduledExecutorService scheduler;
+    
+    private volatile double lagSeconds = Double.NaN;
+    
+    private volatile boolean replicaUsable;
+    
+    public ReplicaLagMonitor(JdbcTemplate replica, String lagQuery, long maxLagMillis, long checkIntervalMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    void check() {
+        try {
+            Double lag = replica.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag != null ? lag : 0.0;
+            replicaUsable = lagSeconds * 1000 <= maxLagMillis;
+        } catch (RuntimeException ex) {
+            lagSeconds = Double.NaN;
+            replicaUsable = false;
+        }
+    }
+    
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+    
+    /**
+     * Last measured lag, or NaN if the replica could not be reached.
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,52 @@
+package com.parkease.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.List;
+
+/**
+ * Hands Hibernate a Caffeine JCache manager for its second-level cache. Region sizes and
+ * expiry live in {@code application.conf}; Hibernate's own statistics (hits, misses, puts
+ * per region) are published by Spring Boot, and the per-region size and eviction counts
+ * come from the JCache statistics bound here.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    
+    static final List<String> REGIONS = List.of(
+            "parking-spots", "users", "users-by-email", "default-update-timestamps-region");
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        return provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+    
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : REGIONS) {
+                Cache<Object, Object> cache = hibernateCacheManager.getCache(region);
+                if (cache != null) {
+                    JCacheMetrics.monitor(registry, cache, Tags.of("layer", "hibernate-l2"));
+                }
+            }
+        };
+    }
+}
@@ -3,16 +3,29 @@ package com.parkease.controller;
 import com.parkease.config.CustomUserDetails;
 import com.parkease.dto.ParkingSpotRequest;
 import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.dto.SpotClusterResponse;
+import com.parkease.dto.SpotImportResponse;
 import com.parkease.service.ParkingSpotService;
+import com.parkease.service.SpotDetailCache;
+import com.parkease.service.SpotImageService;
+import com.parkease.service.SpotImportService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/spots")
@@ -22,21 +35,115 @@ public class ParkingSpotController {
     @Autowired
     private ParkingSpotService parkingSpotService;
     
+    @Autowired
+    private SpotImportService spotImportService;
+    
+    @Autowired
+    private SpotImageService spotImageService;
+    
+    @Autowired
+    private SpotDetailCache spotDetailCache;
+    
     @GetMapping
-    public ResponseEntity<List<ParkingSpotResponse>> searchSpots(
+    public ResponseEntity<List<?>> searchSpots(
             @RequestParam(required = false) String city,
             @RequestParam(required = false) String spotType,
             @RequestParam(required = false) BigDecimal priceMin,
             @RequestParam(required = false) BigDecimal priceMax,
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            if (sort != null) {
+                throw new RuntimeException("fields cannot be combined with sort");
+            }
+            return ResponseEntity.ok(parkingSpotService.searchSpotFields(city, spotType, priceMin, priceMax, date, fields));
+        }
+        if ("best".equals(sort)) {
+            return ResponseEntity.ok(parkingSpotService.searchBestSpots(
+                    city, spotType, priceMin, priceMax, date, lat, lng, limit));
+        }
+        if (sort != null) {
+            throw new RuntimeException("Unknown sort: " + sort);
+        }
         List<ParkingSpotResponse> spots = parkingSpotService.searchSpots(city, spotType, priceMin, priceMax, date);
         return ResponseEntity.ok(spots);
     }
     
+    @GetMapping("/batch")
+    public ResponseEntity<List<ParkingSpotResponse>> getSpotsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(parkingSpotService.getSpotsByIds(ids));
+    }
+    
+    @GetMapping("/nearest")
+    public ResponseEntity<List<ParkingSpotResponse>> findNearestAvailable(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "10") double radiusKm) {
+        return ResponseEntity.ok(parkingSpotService.findNearestAvailable(lat, lng, start, end, k, radiusKm));
+    }
+    
+    @GetMapping("/clusters")
+    public ResponseEntity<List<SpotClusterResponse>> getClusters(
+            @RequestParam String bbox,
+            @RequestParam int zoom) {
+        return ResponseEntity.ok(parkingSpotService.getClusters(bbox, zoom));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<ParkingSpotResponse> getSpotById(@PathVariable Long id) {
-        ParkingSpotResponse spot = parkingSpotService.getSpotById(id);
-        return ResponseEntity.ok(spot);
+    public ResponseEntity<byte[]> getSpotById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Pre-serialized bytes; a matching If-None-Match is answered with 304 by Spring MVC
+        SpotDetailCache.Entry spot = spotDetailCache.get(id, parkingSpotService::loadSpotDetail);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        byte[] gzip = acceptsGzip(acceptEncoding) ? spot.getGzip() : null;
+        if (gzip != null) {
+            return response.eTag(spot.getGzipEtag()).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return response.eTag(spot.getEtag()).body(spot.getJson());
+    }
+    
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed as {@code gzip} (or {@code x-gzip}),
+     * or covered by {@code *}, with a q-value above zero. An explicit {@code gzip;q=0} wins over
+     * {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        double wildcardQuality = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        return (gzipQuality != null ? gzipQuality : wildcardQuality) > 0;
     }
     
     @PostMapping
@@ -48,6 +155,25 @@ public class ParkingSpotController {
         return ResponseEntity.status(HttpStatus.CREATED).body(spot);
     }
     
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<SpotImportResponse> importSpots(
+            InputStream body,
+            Authentication authentication) throws IOException {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        SpotImportResponse result = spotImportService.importCsv(body, userDetails.getUserId());
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ParkingSpotResponse> uploadImage(
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        ParkingSpotResponse spot = spotImageService.uploadImage(id, file, userDetails.getUserId());
+        return ResponseEntity.ok(spot);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ParkingSpotResponse> updateSpot(
             @PathVariable Long id,
@@ -66,8 +192,13 @@ public class ParkingSpotController {
     }
     
     @GetMapping("/my")
-    public ResponseEntity<List<ParkingSpotResponse>> getMySpots(Authentication authentication) {
+    public ResponseEntity<List<?>> getMySpots(
+            @RequestParam(required = false) String fields,
+            Authentication authentication) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (fields != null) {
+            return ResponseEntity.ok(parkingSpotService.getMySpotFields(userDetails.getUserId(), fields));
+        }
         List<ParkingSpotResponse> spots = parkingSpotService.getMySpots(userDetails.getUserId());
         return ResponseEntity.ok(spots);
     }
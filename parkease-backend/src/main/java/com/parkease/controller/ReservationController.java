@@ -1,16 +1,22 @@
 package com.parkease.controller;
 
 import com.parkease.config.CustomUserDetails;
+import com.parkease.dto.ReservationEventResponse;
 import com.parkease.dto.ReservationRequest;
 import com.parkease.dto.ReservationResponse;
+import com.parkease.service.ReservationExportService;
 import com.parkease.service.ReservationService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -21,6 +27,9 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
     
+    @Autowired
+    private ReservationExportService reservationExportService;
+    
     @PostMapping
     public ResponseEntity<ReservationResponse> createReservation(
             @Valid @RequestBody ReservationRequest request,
@@ -31,19 +40,60 @@ public class ReservationController {
     }
     
     @GetMapping("/my")
-    public ResponseEntity<List<ReservationResponse>> getMyReservations(Authentication authentication) {
+    public ResponseEntity<List<?>> getMyReservations(
+            @RequestParam(required = false) String fields,
+            Authentication authentication) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (fields != null) {
+            return ResponseEntity.ok(reservationService.getMyReservationFields(userDetails.getUserId(), fields));
+        }
         List<ReservationResponse> reservations = reservationService.getMyReservations(userDetails.getUserId());
         return ResponseEntity.ok(reservations);
     }
     
     @GetMapping("/hosting")
-    public ResponseEntity<List<ReservationResponse>> getHostingReservations(Authentication authentication) {
+    public ResponseEntity<List<?>> getHostingReservations(
+            @RequestParam(required = false) String fields,
+            Authentication authentication) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (fields != null) {
+            return ResponseEntity.ok(reservationService.getHostingReservationFields(userDetails.getUserId(), fields));
+        }
         List<ReservationResponse> reservations = reservationService.getHostingReservations(userDetails.getUserId());
         return ResponseEntity.ok(reservations);
     }
     
+    @GetMapping("/hosting/export")
+    public void exportHostingReservations(
+            @RequestParam(required = false) YearMonth month,
+            Authentication authentication,
+            HttpServletResponse response) throws IOException {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        reservationExportService.exportHostReservations(userDetails.getUserId(), month, () -> {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"reservations-" + (month != null ? month : "all") + ".csv\"");
+            return response.getOutputStream();
+        });
+    }
+    
+    @GetMapping("/hosting/journal")
+    public ResponseEntity<List<ReservationEventResponse>> getHostingJournal(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(reservationService.getHostingJournal(userDetails.getUserId(), afterId, limit));
+    }
+    
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<ReservationEventResponse>> getHistory(
+            @PathVariable Long id,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(reservationService.getHistory(id, userDetails.getUserId()));
+    }
+    
     @PutMapping("/{id}/confirm")
     public ResponseEntity<ReservationResponse> confirmReservation(
             @PathVariable Long id,
@@ -0,0 +1,41 @@
+package com.parkease.controller;
+
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.service.ReactiveSpotSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+
+/**
+ * Non-blocking variant of {@code GET /api/spots}. The request thread is released as soon as
+ * the query is started (async servlet); with {@code Accept: application/x-ndjson} each spot
+ * is written as soon as its row arrives, otherwise the same JSON array as the blocking
+ * endpoint is returned. Not mapped when {@code reactive.r2dbc.enabled} is false.
+ */
+@RestController
+@ConditionalOnProperty(name = "reactive.r2dbc.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/api/spots/stream")
+@CrossOrigin(origins = "*")
+public class SpotStreamController {
+    
+    @Autowired
+    private ReactiveSpotSearchService reactiveSpotSearchService;
+    
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ParkingSpotResponse> searchSpots(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String spotType,
+            @RequestParam(required = false) BigDecimal priceMin,
+            @RequestParam(required = false) BigDecimal priceMax,
+            @RequestParam(required = false) String date) {
+        return reactiveSpotSearchService.searchSpots(city, spotType, priceMin, priceMax, date);
+    }
+}
@@ -1,9 +1,11 @@
 package com.parkease.dto;
 
 import com.parkease.enums.SpotType;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -11,18 +13,23 @@ import java.math.BigDecimal;
 @Data
 public class ParkingSpotRequest {
     @NotBlank(message = "Title is required")
+    @Size(max = 255, message = "Title must be at most 255 characters")
     private String title;
 
     private String description;
 
     @NotBlank(message = "Address is required")
+    @Size(max = 255, message = "Address must be at most 255 characters")
     private String address;
 
     @NotBlank(message = "City is required")
+    @Size(max = 255, message = "City must be at most 255 characters")
     private String city;
 
+    @Size(max = 255, message = "State must be at most 255 characters")
     private String state;
 
+    @Size(max = 255, message = "Zip code must be at most 255 characters")
     private String zipCode;
 
     private Double latitude;
@@ -31,12 +38,15 @@ public class ParkingSpotRequest {
 
     @NotNull(message = "Price per hour is required")
     @Positive(message = "Price must be positive")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 integer digits and 2 decimals")
     private BigDecimal pricePerHour;
 
     @NotNull(message = "Price per day is required")
     @Positive(message = "Price must be positive")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 integer digits and 2 decimals")
     private BigDecimal pricePerDay;
 
+    @Size(max = 255, message = "Image URL must be at most 255 characters")
     private String imageUrl;
 
     @NotNull(message = "Spot type is required")
@@ -1,5 +1,6 @@
 package com.parkease.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.parkease.enums.SpotType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -26,10 +28,13 @@ public class ParkingSpotResponse {
     private BigDecimal pricePerHour;
     private BigDecimal pricePerDay;
     private String imageUrl;
+    private Map<Integer, String> thumbnailUrls;
     private SpotType spotType;
     private Boolean isAvailable;
     private LocalDateTime createdAt;
     private Double averageRating;
     private Long reviewCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceKm;
 }
 
@@ -0,0 +1,24 @@
+package com.parkease.dto;
+
+import com.parkease.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationEventResponse {
+    private Long id;
+    private UUID eventId;
+    private Long reservationId;
+    private Long spotId;
+    private Long hostId;
+    private ReservationStatus fromStatus;
+    private ReservationStatus toStatus;
+    private Long actorId;
+    private LocalDateTime occurredAt;
+}
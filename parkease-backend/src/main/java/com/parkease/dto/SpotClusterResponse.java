@@ -0,0 +1,17 @@
+package com.parkease.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotClusterResponse {
+    private Double latitude;
+    private Double longitude;
+    private Integer count;
+    private BigDecimal minPricePerHour;
+}
@@ -0,0 +1,13 @@
+package com.parkease.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotImportError {
+    private Long line;
+    private String message;
+}
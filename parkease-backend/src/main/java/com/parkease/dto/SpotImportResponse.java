@@ -0,0 +1,17 @@
+package com.parkease.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotImportResponse {
+    private Long imported;
+    private Long failed;
+    private List<SpotImportError> errors;
+    private Boolean errorsTruncated;
+}
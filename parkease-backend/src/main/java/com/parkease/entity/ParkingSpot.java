@@ -5,12 +5,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "parking_spots")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "parking-spots")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,6 +60,12 @@ public class ParkingSpot {
     @Column(name = "image_url")
     private String imageUrl;
 
+    @Column(name = "image_key")
+    private String imageKey;
+
+    @Column(name = "thumbnails_ready", nullable = false)
+    private Boolean thumbnailsReady = false;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "spot_type", nullable = false)
     private SpotType spotType;
@@ -0,0 +1,463 @@
+package com.parkease.repository;
+
+import com.parkease.config.ApiMetrics;
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.entity.ParkingSpot;
+import com.parkease.enums.SpotType;
+import com.parkease.storage.ThumbnailGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to parking_spots for paths where going through Hibernate
+ * costs more than it gives, such as bulk inserts and the search read path.
+ */
+@Repository
+public class ParkingSpotJdbcRepository {
+    
+    private static final String INSERT_SQL = "INSERT INTO parking_spots " +
+            "(id, host_id, title, description, address, city, state, zip_code, latitude, longitude, " +
+            "price_per_hour, price_per_day, image_url, spot_type, is_available, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    /**
+     * {@link ParkingSpotResponse} columns with the host name and rating summary joined in;
+     * callers append the WHERE clause.
+     */
+    private static final String SPOT_RESPONSES_SQL = "SELECT p.id, p.host_id, u.name AS host_name, p.title, " +
+            "p.description, p.address, p.city, p.state, p.zip_code, p.latitude, p.longitude, " +
+            "p.price_per_hour, p.price_per_day, p.image_url, p.image_key, p.thumbnails_ready, p.spot_type, " +
+            "p.is_available, p.created_at, r.average_rating, r.review_count " +
+            "FROM parking_spots p " +
+            "LEFT JOIN users u ON u.id = p.host_id " +
+            "CROSS JOIN LATERAL (SELECT AVG(rv.rating) AS average_rating, COUNT(*) AS review_count " +
+            "FROM reviews rv WHERE rv.spot_id = p.id) r ";
+    
+    /**
+     * The search filters: spots with a confirmed reservation overlapping [freeFrom, freeUntil)
+     * are excluded in the same statement. They match {@link ParkingSpotRepository#SEARCH_SPOTS_SQL}
+     * so idx_parking_spots_search still applies.
+     */
+    private static final String SEARCH_FILTER_SQL =
+            "WHERE (:city IS NULL OR LOWER(CAST(p.city AS TEXT)) = LOWER(:city)) AND " +
+            "(:spotType IS NULL OR p.spot_type = CAST(:spotType AS TEXT)) AND " +
+            "(:priceMin IS NULL OR p.price_per_hour >= :priceMin) AND " +
+            "(:priceMax IS NULL OR p.price_per_hour <= :priceMax) AND " +
+            "p.is_available = true AND " +
+            "(CAST(:freeFrom AS TIMESTAMP) IS NULL OR NOT EXISTS (SELECT 1 FROM reservations res " +
+            "WHERE res.spot_id = p.id AND res.status = 'CONFIRMED' AND " +
+            "((res.start_time <= :freeFrom AND res.end_time > :freeFrom) OR " +
+            "(res.start_time < :freeUntil AND res.end_time >= :freeUntil) OR " +
+            "(res.start_time >= :freeFrom AND res.end_time <= :freeUntil))))";
+    
+    /**
+     * Search straight into {@link ParkingSpotResponse} rows.
+     */
+    public static final String SEARCH_RESPONSES_SQL = SPOT_RESPONSES_SQL + SEARCH_FILTER_SQL;
+    
+    /**
+     * The same search, reduced to what ranking needs per spot.
+     */
+    private static final String SEARCH_CANDIDATES_SQL = "SELECT p.id, p.latitude, p.longitude, p.price_per_hour, " +
+            "r.average_rating, r.review_count " +
+            "FROM parking_spots p " +
+            "CROSS JOIN LATERAL (SELECT AVG(rv.rating) AS average_rating, COUNT(*) AS review_count " +
+            "FROM reviews rv WHERE rv.spot_id = p.id) r " +
+            SEARCH_FILTER_SQL;
+    
+    private static final String LOCATIONS_SQL = "SELECT id, city, latitude, longitude, price_per_hour " +
+            "FROM parking_spots WHERE is_available = true AND latitude IS NOT NULL AND longitude IS NOT NULL";
+    
+    /**
+     * Claims up to {@code :limit} thumbnail jobs that are due, pushing their retry time out by
+     * {@code :leaseMillis} so no other node claims them while they run.
+     */
+    public static final String CLAIM_THUMBNAIL_RETRIES_SQL = "UPDATE parking_spots " +
+            "SET thumbnail_retry_at = now() + :leaseMillis * interval '1 millisecond' " +
+            "WHERE id IN (SELECT id FROM parking_spots " +
+            "WHERE thumbnails_ready = false AND thumbnail_retry_at IS NOT NULL AND thumbnail_retry_at <= now() " +
+            "ORDER BY thumbnail_retry_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, image_key";
+    
+    private static final RowMapper<SpotLocation> SPOT_LOCATION_MAPPER = (rs, rowNum) -> new SpotLocation(
+            rs.getLong("id"),
+            rs.getString("city"),
+            rs.getDouble("latitude"),
+            rs.getDouble("longitude"),
+            rs.getBigDecimal("price_per_hour"));
+    
+    /**
+     * Columns and joins behind each {@link ParkingSpotResponse} field, for {@code fields=} lists.
+     */
+    private final SqlProjection spotProjection = new SqlProjection()
+            .join("host", "LEFT JOIN users u ON u.id = p.host_id")
+            .join("rating", "CROSS JOIN LATERAL (SELECT AVG(rv.rating) AS average_rating, COUNT(*) AS review_count " +
+                    "FROM reviews rv WHERE rv.spot_id = p.id) r")
+            .field("id", "p.id", null, rs -> rs.getLong("id"))
+            .field("hostId", "p.host_id", null, rs -> rs.getLong("host_id"))
+            .field("hostName", "u.name AS host_name", "host", rs -> rs.getString("host_name"))
+            .field("title", "p.title", null, rs -> rs.getString("title"))
+            .field("description", "p.description", null, rs -> rs.getString("description"))
+            .field("address", "p.address", null, rs -> rs.getString("address"))
+            .field("city", "p.city", null, rs -> rs.getString("city"))
+            .field("state", "p.state", null, rs -> rs.getString("state"))
+            .field("zipCode", "p.zip_code", null, rs -> rs.getString("zip_code"))
+            .field("latitude", "p.latitude", null, rs -> rs.getObject("latitude", Double.class))
+            .field("longitude", "p.longitude", null, rs -> rs.getObject("longitude", Double.class))
+            .field("pricePerHour", "p.price_per_hour", null, rs -> rs.getBigDecimal("price_per_hour"))
+            .field("pricePerDay", "p.price_per_day", null, rs -> rs.getBigDecimal("price_per_day"))
+            .field("imageUrl", "p.image_url", null, rs -> rs.getString("image_url"))
+            .field("thumbnailUrls", "p.image_key, p.thumbnails_ready", null, this::thumbnailUrls)
+            .field("spotType", "p.spot_type", null, rs -> rs.getString("spot_type"))
+            .field("isAvailable", "p.is_available", null, rs -> rs.getBoolean("is_available"))
+            .field("createdAt", "p.created_at", null, rs -> SqlProjection.localDateTime(rs, "created_at"))
+            .field("averageRating", "r.average_rating", "rating", rs -> {
+                BigDecimal averageRating = rs.getBigDecimal("average_rating");
+                return averageRating != null ? averageRating.doubleValue() : 0.0;
+            })
+            .field("reviewCount", "r.review_count", "rating", rs -> rs.getLong("review_count"));
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+    
+    @Autowired
+    private ApiMetrics apiMetrics;
+    
+    private ParkingSpotResponse mapSpotResponse(ResultSet rs, int rowNum) throws SQLException {
+        ParkingSpotResponse response = new ParkingSpotResponse();
+        response.setId(rs.getLong("id"));
+        response.setHostId(rs.getLong("host_id"));
+        response.setHostName(rs.getString("host_name"));
+        response.setTitle(rs.getString("title"));
+        response.setDescription(rs.getString("description"));
+        response.setAddress(rs.getString("address"));
+        response.setCity(rs.getString("city"));
+        response.setState(rs.getString("state"));
+        response.setZipCode(rs.getString("zip_code"));
+        response.setLatitude(rs.getObject("latitude", Double.class));
+        response.setLongitude(rs.getObject("longitude", Double.class));
+        response.setPricePerHour(rs.getBigDecimal("price_per_hour"));
+        response.setPricePerDay(rs.getBigDecimal("price_per_day"));
+        response.setImageUrl(rs.getString("image_url"));
+        response.setThumbnailUrls(thumbnailUrls(rs));
+        response.setSpotType(SpotType.valueOf(rs.getString("spot_type")));
+        response.setIsAvailable(rs.getBoolean("is_available"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        response.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        BigDecimal averageRating = rs.getBigDecimal("average_rating");
+        response.setAverageRating(averageRating != null ? averageRating.doubleValue() : 0.0);
+        response.setReviewCount(rs.getLong("review_count"));
+        return response;
+    }
+    
+    private Map<Integer, String> thumbnailUrls(ResultSet rs) throws SQLException {
+        return thumbnailGenerator.thumbnailUrls(rs.getString("image_key"), rs.getBoolean("thumbnails_ready"));
+    }
+    
+    /**
+     * Reserves a block of ids from the parking_spots id sequence in a single round trip,
+     * so a batch insert can carry its own ids instead of reading them back row by row.
+     */
+    public List<Long> allocateIds(int count) {
+        return apiMetrics.time("parkease.repository.parking_spots.allocate_ids", "spot_import",
+                () -> jdbcTemplate.queryForList(
+                        "SELECT nextval(pg_get_serial_sequence('parking_spots', 'id')) FROM generate_series(1, ?)",
+                        Long.class, count));
+    }
+    
+    /**
+     * Inserts spots that already have an id assigned, as one JDBC batch.
+     */
+    public void batchInsert(List<ParkingSpot> spots) {
+        List<Object[]> rows = new ArrayList<>(spots.size());
+        for (ParkingSpot spot : spots) {
+            rows.add(new Object[]{
+                    spot.getId(),
+                    spot.getHostId(),
+                    spot.getTitle(),
+                    spot.getDescription(),
+                    spot.getAddress(),
+                    spot.getCity(),
+                    spot.getState(),
+                    spot.getZipCode(),
+                    spot.getLatitude(),
+                    spot.getLongitude(),
+                    spot.getPricePerHour(),
+                    spot.getPricePerDay(),
+                    spot.getImageUrl(),
+                    spot.getSpotType().name(),
+                    spot.getIsAvailable(),
+                    Timestamp.valueOf(spot.getCreatedAt())
+            });
+        }
+        apiMetrics.run("parkease.repository.parking_spots.batch_insert", "spot_import",
+                () -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+    
+    /**
+     * Runs {@link #SEARCH_RESPONSES_SQL}. No entities are loaded, so nothing enters the
+     * persistence context. {@code freeFrom}/{@code freeUntil} may be null to skip the
+     * availability filter.
+     */
+    public List<ParkingSpotResponse> searchResponses(String city, String spotType, BigDecimal priceMin,
+                                                     BigDecimal priceMax, LocalDateTime freeFrom,
+                                                     LocalDateTime freeUntil) {
+        MapSqlParameterSource parameters = searchParameters(city, spotType, priceMin, priceMax, freeFrom, freeUntil);
+        return apiMetrics.time("parkease.repository.parking_spots.search_responses", "search",
+                () -> namedParameterJdbcTemplate.query(SEARCH_RESPONSES_SQL, parameters, this::mapSpotResponse));
+    }
+    
+    /**
+     * Runs the search for ranking: each match is handed to {@code consumer} as it is read,
+     * so the caller decides what to keep. Takes the same filters as {@link #searchResponses}.
+     */
+    public void searchCandidates(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax,
+                                 LocalDateTime freeFrom, LocalDateTime freeUntil, Consumer<SpotCandidate> consumer) {
+        MapSqlParameterSource parameters = searchParameters(city, spotType, priceMin, priceMax, freeFrom, freeUntil);
+        apiMetrics.run("parkease.repository.parking_spots.search_candidates", "search_best",
+                () -> namedParameterJdbcTemplate.query(SEARCH_CANDIDATES_SQL, parameters, (RowCallbackHandler) rs -> {
+                    BigDecimal averageRating = rs.getBigDecimal("average_rating");
+                    consumer.accept(new SpotCandidate(
+                            rs.getLong("id"),
+                            rs.getObject("latitude", Double.class),
+                            rs.getObject("longitude", Double.class),
+                            rs.getBigDecimal("price_per_hour"),
+                            averageRating != null ? averageRating.doubleValue() : 0.0,
+                            rs.getLong("review_count")));
+                }));
+    }
+    
+    /**
+     * The search with only the given {@code fields} (comma-separated {@link ParkingSpotResponse}
+     * property names) selected; the rating aggregate and the host join are left out unless
+     * a field needs them.
+     */
+    public List<Map<String, Object>> searchFields(String fields, String city, String spotType, BigDecimal priceMin,
+                                                  BigDecimal priceMax, LocalDateTime freeFrom, LocalDateTime freeUntil) {
+        SqlProjection.Selection selection = spotProjection.select(fields);
+        String sql = "SELECT " + selection.getColumns() + " FROM parking_spots p " + selection.getJoins() + SEARCH_FILTER_SQL;
+        MapSqlParameterSource parameters = searchParameters(city, spotType, priceMin, priceMax, freeFrom, freeUntil);
+        return apiMetrics.time("parkease.repository.parking_spots.search_fields", "search",
+                () -> namedParameterJdbcTemplate.query(sql, parameters, selection.rowMapper()));
+    }
+    
+    /**
+     * A host's spots with only the given {@code fields} selected.
+     */
+    public List<Map<String, Object>> findFieldsByHostId(Long hostId, String fields) {
+        SqlProjection.Selection selection = spotProjection.select(fields);
+        String sql = "SELECT " + selection.getColumns() + " FROM parking_spots p " + selection.getJoins() +
+                "WHERE p.host_id = ?";
+        return jdbcTemplate.query(sql, selection.rowMapper(), hostId);
+    }
+    
+    private static MapSqlParameterSource searchParameters(String city, String spotType, BigDecimal priceMin,
+                                                          BigDecimal priceMax, LocalDateTime freeFrom,
+                                                          LocalDateTime freeUntil) {
+        // Typed so that nulls still tell PostgreSQL the parameter type
+        return new MapSqlParameterSource()
+                .addValue("city", city, Types.VARCHAR)
+                .addValue("spotType", spotType, Types.VARCHAR)
+                .addValue("priceMin", priceMin, Types.NUMERIC)
+                .addValue("priceMax", priceMax, Types.NUMERIC)
+                .addValue("freeFrom", freeFrom != null ? Timestamp.valueOf(freeFrom) : null, Types.TIMESTAMP)
+                .addValue("freeUntil", freeUntil != null ? Timestamp.valueOf(freeUntil) : null, Types.TIMESTAMP);
+    }
+    
+    /**
+     * Loads the response rows of the given spots in one statement, in no particular order.
+     * Ids that no longer exist are simply missing from the result.
+     */
+    public List<ParkingSpotResponse> findResponsesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return apiMetrics.time("parkease.repository.parking_spots.responses_by_ids", "search",
+                () -> namedParameterJdbcTemplate.query(SPOT_RESPONSES_SQL + "WHERE p.id IN (:ids)",
+                        new MapSqlParameterSource("ids", ids), this::mapSpotResponse));
+    }
+    
+    /**
+     * Position and price of every available spot that has coordinates.
+     */
+    public List<SpotLocation> findAvailableLocations() {
+        return jdbcTemplate.query(LOCATIONS_SQL, SPOT_LOCATION_MAPPER);
+    }
+    
+    /**
+     * The locations of those {@code ids} that are available and have coordinates; the other
+     * ids are left out, whether the spot was deleted, made unavailable or lost its position.
+     */
+    public List<SpotLocation> findAvailableLocationsByIds(Collection<Long> ids) {
+        return namedParameterJdbcTemplate.query(LOCATIONS_SQL + " AND id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), SPOT_LOCATION_MAPPER);
+    }
+    
+    /**
+     * Starts the thumbnail bookkeeping for a newly uploaded image: no failed attempts, and
+     * due for the sweep in {@code leaseMillis} in case the queued job never finishes.
+     */
+    public void resetThumbnailRetry(Long spotId, long leaseMillis) {
+        namedParameterJdbcTemplate.update("UPDATE parking_spots SET thumbnail_attempts = 0, " +
+                        "thumbnail_retry_at = now() + :leaseMillis * interval '1 millisecond' WHERE id = :id",
+                new MapSqlParameterSource("id", spotId).addValue("leaseMillis", leaseMillis));
+    }
+    
+    /**
+     * Makes the thumbnails of {@code imageKey} due again in {@code delayMillis} without counting
+     * an attempt, e.g. when the queue was full. No-op if the spot has another image by now.
+     */
+    public void deferThumbnails(Long spotId, String imageKey, long delayMillis) {
+        namedParameterJdbcTemplate.update("UPDATE parking_spots " +
+                        "SET thumbnail_retry_at = now() + :delayMillis * interval '1 millisecond' " +
+                        "WHERE id = :id AND image_key = :imageKey AND thumbnails_ready = false",
+                new MapSqlParameterSource("id", spotId).addValue("imageKey", imageKey).addValue("delayMillis", delayMillis));
+    }
+    
+    /**
+     * Counts a failed attempt at the thumbnails of {@code imageKey} and schedules the next one,
+     * {@code delayMillis} doubling per failure, or none once {@code maxAttempts} have failed.
+     * Returns the attempts so far, or null if the spot has another image by now.
+     */
+    public Integer recordThumbnailFailure(Long spotId, String imageKey, long delayMillis, int maxAttempts) {
+        List<Integer> attempts = namedParameterJdbcTemplate.queryForList("UPDATE parking_spots " +
+                        "SET thumbnail_attempts = thumbnail_attempts + 1, " +
+                        "thumbnail_retry_at = CASE WHEN thumbnail_attempts + 1 >= :maxAttempts THEN NULL " +
+                        "ELSE now() + :delayMillis * power(2, thumbnail_attempts) * interval '1 millisecond' END " +
+                        "WHERE id = :id AND image_key = :imageKey AND thumbnails_ready = false " +
+                        "RETURNING thumbnail_attempts",
+                new MapSqlParameterSource("id", spotId).addValue("imageKey", imageKey)
+                        .addValue("delayMillis", delayMillis).addValue("maxAttempts", maxAttempts),
+                Integer.class);
+        return attempts.isEmpty() ? null : attempts.get(0);
+    }
+    
+    /**
+     * Spot ids and image keys of up to {@code limit} thumbnail jobs to queue again; see
+     * {@link #CLAIM_THUMBNAIL_RETRIES_SQL}.
+     */
+    public List<Map.Entry<Long, String>> claimThumbnailRetries(int limit, long leaseMillis) {
+        return namedParameterJdbcTemplate.query(CLAIM_THUMBNAIL_RETRIES_SQL,
+                new MapSqlParameterSource("limit", limit).addValue("leaseMillis", leaseMillis),
+                (rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getString("image_key")));
+    }
+    
+    /**
+     * What ranking looks at per search match; latitude and longitude may be null.
+     */
+    public static final class SpotCandidate {
+        
+        private final long id;
+        
+        private final Double latitude;
+        
+        private final Double longitude;
+        
+        private final BigDecimal pricePerHour;
+        
+        private final double averageRating;
+        
+        private final long reviewCount;
+        
+        public SpotCandidate(long id, Double latitude, Double longitude, BigDecimal pricePerHour,
+                             double averageRating, long reviewCount) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.pricePerHour = pricePerHour;
+            this.averageRating = averageRating;
+            this.reviewCount = reviewCount;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public Double getLatitude() {
+            return latitude;
+        }
+        
+        public Double getLongitude() {
+            return longitude;
+        }
+        
+        public BigDecimal getPricePerHour() {
+            return pricePerHour;
+        }
+        
+        public double getAverageRating() {
+            return averageRating;
+        }
+        
+        public long getReviewCount() {
+            return reviewCount;
+        }
+    }
+    
+    /**
+     * The few columns in-memory spatial indexes keep per spot.
+     */
+    public static final class SpotLocation {
+        
+        private final long id;
+        
+        private final String city;
+        
+        private final double latitude;
+        
+        private final double longitude;
+        
+        private final BigDecimal pricePerHour;
+        
+        public SpotLocation(long id, String city, double latitude, double longitude, BigDecimal pricePerHour) {
+            this.id = id;
+            this.city = city;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.pricePerHour = pricePerHour;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public String getCity() {
+            return city;
+        }
+        
+        public double getLatitude() {
+            return latitude;
+        }
+        
+        public double getLongitude() {
+            return longitude;
+        }
+        
+        public BigDecimal getPricePerHour() {
+            return pricePerHour;
+        }
+    }
+}
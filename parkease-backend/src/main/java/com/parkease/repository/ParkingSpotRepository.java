@@ -18,12 +18,17 @@ public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long>
     
     List<ParkingSpot> findByCityIgnoreCaseAndIsAvailableTrue(String city);
     
-    @Query(value = "SELECT * FROM parking_spots p WHERE " +
+    /**
+     * Served by idx_parking_spots_search (V2 migration); the plan check in src/perf keeps it that way.
+     */
+    String SEARCH_SPOTS_SQL = "SELECT * FROM parking_spots p WHERE " +
            "(:city IS NULL OR LOWER(CAST(p.city AS TEXT)) = LOWER(:city)) AND " +
            "(:spotType IS NULL OR p.spot_type = CAST(:spotType AS TEXT)) AND " +
            "(:priceMin IS NULL OR p.price_per_hour >= :priceMin) AND " +
            "(:priceMax IS NULL OR p.price_per_hour <= :priceMax) AND " +
-           "p.is_available = true", nativeQuery = true)
+           "p.is_available = true";
+    
+    @Query(value = SEARCH_SPOTS_SQL, nativeQuery = true)
     List<ParkingSpot> searchSpots(@Param("city") String city,
                                    @Param("spotType") String spotType,
                                    @Param("priceMin") BigDecimal priceMin,
@@ -0,0 +1,164 @@
+package com.parkease.repository;
+
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.enums.SpotType;
+import com.parkease.storage.ThumbnailGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking access to parking_spots over R2DBC, for the streaming search endpoint.
+ * Runs the same {@link ParkingSpotJdbcRepository#SEARCH_RESPONSES_SQL} as the blocking path
+ * on its own small connection pool; rows are fetched in chunks of {@code fetch-size} and
+ * only as fast as the client reads them.
+ *
+ * The pool is deliberately not a {@code ConnectionFactory} bean: that would bring up Spring
+ * Boot's R2DBC auto-configuration and a reactive transaction manager next to the JPA one.
+ *
+ * Off with {@code reactive.r2dbc.enabled=false} (the prod default, where the JDBC URL goes
+ * through the Cloud SQL socket factory and has no R2DBC equivalent).
+ */
+@Repository
+@ConditionalOnProperty(name = "reactive.r2dbc.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveParkingSpotRepository {
+
+    private final ConnectionPool pool;
+
+    private final DatabaseClient databaseClient;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final int fetchSize;
+
+    public ReactiveParkingSpotRepository(@Value("${reactive.r2dbc.url:}") String url,
+                                         @Value("${spring.datasource.url}") String jdbcUrl,
+                                         @Value("${spring.datasource.username}") String username,
+                                         @Value("${spring.datasource.password}") String password,
+                                         @Value("${reactive.r2dbc.pool.initial-size:0}") int initialSize,
+                                         @Value("${reactive.r2dbc.pool.max-size:10}") int maxSize,
+                                         @Value("${reactive.r2dbc.pool.max-idle-time-ms:1800000}") long maxIdleTimeMillis,
+                                         @Value("${reactive.r2dbc.fetch-size:256}") int fetchSize,
+                                         ThumbnailGenerator thumbnailGenerator,
+                                         MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url.isBlank() ? toR2dbcUrl(jdbcUrl) : url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionFactory connectionFactory;
+        try {
+            connectionFactory = ConnectionFactories.get(options);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Invalid reactive.r2dbc.url (" + e.getMessage() + "), set R2DBC_URL "
+                    + "to an r2dbc:postgresql://host/database URL or disable the streaming search with "
+                    + "reactive.r2dbc.enabled=false", e);
+        }
+        // initial-size 0: no connection is opened until the first reactive search
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive-search")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.fetchSize = fetchSize;
+
+        pool.getMetrics().ifPresent(metrics -> {
+            Gauge.builder("r2dbc.pool.acquired", metrics, m -> m.acquiredSize())
+                    .tag("pool", "reactive-search")
+                    .register(meterRegistry);
+            Gauge.builder("r2dbc.pool.pending", metrics, m -> m.pendingAcquireSize())
+                    .tag("pool", "reactive-search")
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Derives the R2DBC URL from the JDBC one; JDBC-only query parameters are dropped. A URL
+     * without a host, such as one going through a socket factory, cannot be carried over.
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith("jdbc:postgresql://") || jdbcUrl.startsWith("jdbc:postgresql:///")) {
+            throw new IllegalStateException("Cannot derive an R2DBC URL from spring.datasource.url, it needs "
+                    + "jdbc:postgresql://host/database; set R2DBC_URL (reactive.r2dbc.url) or disable the "
+                    + "streaming search with reactive.r2dbc.enabled=false");
+        }
+        String url = "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+
+    /**
+     * Streams {@link ParkingSpotJdbcRepository#SEARCH_RESPONSES_SQL}; nothing is queried until
+     * the result is subscribed to.
+     */
+    public Flux<ParkingSpotResponse> searchResponses(String city, String spotType, BigDecimal priceMin,
+                                                     BigDecimal priceMax, LocalDateTime freeFrom,
+                                                     LocalDateTime freeUntil) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(ParkingSpotJdbcRepository.SEARCH_RESPONSES_SQL)
+                .filter(statement -> statement.fetchSize(fetchSize));
+        spec = bind(spec, "city", city, String.class);
+        spec = bind(spec, "spotType", spotType, String.class);
+        spec = bind(spec, "priceMin", priceMin, BigDecimal.class);
+        spec = bind(spec, "priceMax", priceMax, BigDecimal.class);
+        spec = bind(spec, "freeFrom", freeFrom, LocalDateTime.class);
+        spec = bind(spec, "freeUntil", freeUntil, LocalDateTime.class);
+        return spec.map(this::toResponse).all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        // Typed nulls, so PostgreSQL can still infer the parameter type
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private ParkingSpotResponse toResponse(Readable row) {
+        ParkingSpotResponse response = new ParkingSpotResponse();
+        response.setId(row.get("id", Long.class));
+        response.setHostId(row.get("host_id", Long.class));
+        response.setHostName(row.get("host_name", String.class));
+        response.setTitle(row.get("title", String.class));
+        response.setDescription(row.get("description", String.class));
+        response.setAddress(row.get("address", String.class));
+        response.setCity(row.get("city", String.class));
+        response.setState(row.get("state", String.class));
+        response.setZipCode(row.get("zip_code", String.class));
+        response.setLatitude(row.get("latitude", Double.class));
+        response.setLongitude(row.get("longitude", Double.class));
+        response.setPricePerHour(row.get("price_per_hour", BigDecimal.class));
+        response.setPricePerDay(row.get("price_per_day", BigDecimal.class));
+        response.setImageUrl(row.get("image_url", String.class));
+        response.setThumbnailUrls(thumbnailGenerator.thumbnailUrls(
+                row.get("image_key", String.class), row.get("thumbnails_ready", Boolean.class)));
+        response.setSpotType(SpotType.valueOf(row.get("spot_type", String.class)));
+        response.setIsAvailable(row.get("is_available", Boolean.class));
+        response.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        BigDecimal averageRating = row.get("average_rating", BigDecimal.class);
+        response.setAverageRating(averageRating != null ? averageRating.doubleValue() : 0.0);
+        Long reviewCount = row.get("review_count", Long.class);
+        response.setReviewCount(reviewCount != null ? reviewCount : 0L);
+        return response;
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,104 @@
+package com.parkease.repository;
+
+import com.parkease.config.ApiMetrics;
+import com.parkease.dto.ReservationEventResponse;
+import com.parkease.enums.ReservationStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The reservation_events journal: batched appends from {@code ReservationJournal}, and the
+ * reads behind a reservation's history and the host replay feed. Rows are never updated.
+ */
+@Repository
+public class ReservationEventJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO reservation_events " +
+            "(event_id, reservation_id, spot_id, host_id, from_status, to_status, actor_id, occurred_at) " +
+            "VALUES (:eventId, :reservationId, :spotId, :hostId, :fromStatus, :toStatus, :actorId, :occurredAt) " +
+            "ON CONFLICT (event_id) DO NOTHING";
+
+    private static final String EVENT_COLUMNS = "SELECT id, event_id, reservation_id, spot_id, host_id, " +
+            "from_status, to_status, actor_id, occurred_at FROM reservation_events ";
+
+    public static final String BY_RESERVATION_SQL = EVENT_COLUMNS +
+            "WHERE reservation_id = :reservationId ORDER BY occurred_at, id";
+
+    /**
+     * Rows recorded less than {@code settleMillis} ago are left out: ids are taken when a batch
+     * is inserted, so a batch from another node may still commit with ids below the newest one
+     * visible, and a reader paging by id would skip it.
+     */
+    public static final String BY_HOST_AFTER_SQL = EVENT_COLUMNS +
+            "WHERE host_id = :hostId AND id > :afterId " +
+            "AND recorded_at < now() - :settleMillis * interval '1 millisecond' " +
+            "ORDER BY id LIMIT :limit";
+
+    private static final RowMapper<ReservationEventResponse> EVENT_MAPPER = (rs, rowNum) -> {
+        String fromStatus = rs.getString("from_status");
+        return new ReservationEventResponse(
+                rs.getLong("id"),
+                rs.getObject("event_id", UUID.class),
+                rs.getLong("reservation_id"),
+                rs.getLong("spot_id"),
+                rs.getLong("host_id"),
+                fromStatus != null ? ReservationStatus.valueOf(fromStatus) : null,
+                ReservationStatus.valueOf(rs.getString("to_status")),
+                rs.getLong("actor_id"),
+                SqlProjection.localDateTime(rs, "occurred_at"));
+    };
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ApiMetrics apiMetrics;
+
+    /**
+     * Appends the events as one JDBC batch; events already in the journal are skipped.
+     */
+    public void insertAll(List<ReservationEventResponse> events) {
+        SqlParameterSource[] rows = new SqlParameterSource[events.size()];
+        for (int i = 0; i < rows.length; i++) {
+            ReservationEventResponse event = events.get(i);
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("eventId", event.getEventId())
+                    .addValue("reservationId", event.getReservationId())
+                    .addValue("spotId", event.getSpotId())
+                    .addValue("hostId", event.getHostId())
+                    .addValue("fromStatus", event.getFromStatus() != null ? event.getFromStatus().name() : null)
+                    .addValue("toStatus", event.getToStatus().name())
+                    .addValue("actorId", event.getActorId())
+                    .addValue("occurredAt", Timestamp.valueOf(event.getOccurredAt()));
+        }
+        apiMetrics.run("parkease.repository.reservation_events.insert_all", "reservation_journal",
+                () -> namedParameterJdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+
+    public List<ReservationEventResponse> findByReservationId(Long reservationId) {
+        return apiMetrics.time("parkease.repository.reservation_events.by_reservation", "reservation_history",
+                () -> namedParameterJdbcTemplate.query(BY_RESERVATION_SQL,
+                        new MapSqlParameterSource("reservationId", reservationId), EVENT_MAPPER));
+    }
+
+    /**
+     * Up to {@code limit} events on the host's spots with an id above {@code afterId}, in id
+     * order, leaving out those recorded in the last {@code settleMillis}.
+     */
+    public List<ReservationEventResponse> findByHostIdAfter(Long hostId, long afterId, int limit, long settleMillis) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("hostId", hostId)
+                .addValue("afterId", afterId)
+                .addValue("settleMillis", settleMillis)
+                .addValue("limit", limit);
+        return apiMetrics.time("parkease.repository.reservation_events.by_host_after", "reservation_journal_replay",
+                () -> namedParameterJdbcTemplate.query(BY_HOST_AFTER_SQL, parameters, EVENT_MAPPER));
+    }
+}
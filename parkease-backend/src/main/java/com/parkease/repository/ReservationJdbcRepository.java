@@ -0,0 +1,98 @@
+package com.parkease.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC reads of reservations for {@code fields=} lists: only the requested columns
+ * are selected, and the spot and renter are joined in the same statement when asked for
+ * instead of being loaded per reservation. Also the cursor-based read behind host exports.
+ */
+@Repository
+public class ReservationJdbcRepository {
+
+    /**
+     * Columns and joins behind each {@code ReservationResponse} field. {@code spot} stands
+     * for the spot summary the full response embeds.
+     */
+    private static final SqlProjection RESERVATION_PROJECTION = new SqlProjection()
+            .join("spot", "JOIN parking_spots p ON p.id = r.spot_id")
+            .join("renter", "LEFT JOIN users u ON u.id = r.renter_id")
+            .field("id", "r.id", null, rs -> rs.getLong("id"))
+            .field("spotId", "r.spot_id", null, rs -> rs.getLong("spot_id"))
+            .field("renterId", "r.renter_id", null, rs -> rs.getLong("renter_id"))
+            .field("renterName", "u.name AS renter_name", "renter", rs -> rs.getString("renter_name"))
+            .field("renterEmail", "u.email AS renter_email", "renter", rs -> rs.getString("renter_email"))
+            .field("startTime", "r.start_time", null, rs -> SqlProjection.localDateTime(rs, "start_time"))
+            .field("endTime", "r.end_time", null, rs -> SqlProjection.localDateTime(rs, "end_time"))
+            .field("totalPrice", "r.total_price", null, rs -> rs.getBigDecimal("total_price"))
+            .field("status", "r.status", null, rs -> rs.getString("status"))
+            .field("createdAt", "r.created_at", null, rs -> SqlProjection.localDateTime(rs, "created_at"))
+            .field("spot.id", "r.spot_id", null, rs -> rs.getLong("spot_id"))
+            .field("spot.title", "p.title AS spot_title", "spot", rs -> rs.getString("spot_title"))
+            .field("spot.address", "p.address AS spot_address", "spot", rs -> rs.getString("spot_address"))
+            .field("spot.city", "p.city AS spot_city", "spot", rs -> rs.getString("spot_city"))
+            .field("spot.imageUrl", "p.image_url AS spot_image_url", "spot", rs -> rs.getString("spot_image_url"))
+            .field("spot.pricePerHour", "p.price_per_hour AS spot_price_per_hour", "spot",
+                    rs -> rs.getBigDecimal("spot_price_per_hour"))
+            .field("spot.pricePerDay", "p.price_per_day AS spot_price_per_day", "spot",
+                    rs -> rs.getBigDecimal("spot_price_per_day"))
+            .group("spot", "spot.id", "spot.title", "spot.address", "spot.city", "spot.imageUrl",
+                    "spot.pricePerHour", "spot.pricePerDay");
+
+    private static final String HOST_EXPORT_SQL = "SELECT r.id, r.spot_id, p.title AS spot_title, " +
+            "u.name AS renter_name, r.start_time, r.end_time, r.status, r.total_price, r.created_at " +
+            "FROM reservations r " +
+            "JOIN parking_spots p ON p.id = r.spot_id " +
+            "LEFT JOIN users u ON u.id = r.renter_id " +
+            "WHERE p.host_id = ? ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<Map<String, Object>> findFieldsByRenterId(Long renterId, String fields) {
+        SqlProjection.Selection selection = RESERVATION_PROJECTION.select(fields);
+        String sql = "SELECT " + selection.getColumns() + " FROM reservations r " + selection.getJoins() +
+                "WHERE r.renter_id = ?";
+        return jdbcTemplate.query(sql, selection.rowMapper(), renterId);
+    }
+
+    public List<Map<String, Object>> findFieldsByHostId(Long hostId, String fields) {
+        SqlProjection.Selection selection = RESERVATION_PROJECTION.select(fields, "spot");
+        String sql = "SELECT " + selection.getColumns() + " FROM reservations r " + selection.getJoins() +
+                "WHERE p.host_id = ?";
+        return jdbcTemplate.query(sql, selection.rowMapper(), hostId);
+    }
+
+    /**
+     * Streams a host's reservations starting in [from, until), or all of them if both are null,
+     * ordered by start time, to {@code handler} through a forward-only cursor that holds
+     * {@code fetchSize} rows at a time. Must run inside a transaction: the PostgreSQL driver
+     * only fetches in chunks when autocommit is off, and reads everything up front otherwise.
+     */
+    public void streamHostReservations(Long hostId, LocalDateTime from, LocalDateTime until, int fetchSize,
+                                       RowCallbackHandler handler) {
+        String sql = HOST_EXPORT_SQL + (from != null ? "AND r.start_time >= ? AND r.start_time < ? " : "") +
+                "ORDER BY r.start_time, r.id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, hostId);
+            if (from != null) {
+                statement.setTimestamp(2, Timestamp.valueOf(from));
+                statement.setTimestamp(3, Timestamp.valueOf(until));
+            }
+            return statement;
+        }, handler);
+    }
+}
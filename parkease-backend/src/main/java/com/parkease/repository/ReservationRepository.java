@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +31,16 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
                                                    @Param("endTime") LocalDateTime endTime,
                                                    @Param("status") ReservationStatus status);
     
+    @Query("SELECT DISTINCT r.spotId FROM Reservation r WHERE r.spotId IN :spotIds AND " +
+           "r.status = :status AND " +
+           "((r.startTime <= :startTime AND r.endTime > :startTime) OR " +
+           "(r.startTime < :endTime AND r.endTime >= :endTime) OR " +
+           "(r.startTime >= :startTime AND r.endTime <= :endTime))")
+    List<Long> findConflictingSpotIds(@Param("spotIds") Collection<Long> spotIds,
+                                      @Param("startTime") LocalDateTime startTime,
+                                      @Param("endTime") LocalDateTime endTime,
+                                      @Param("status") ReservationStatus status);
+    
     @Query("SELECT r FROM Reservation r WHERE r.spotId = :spotId AND r.renterId = :renterId AND r.status = :status")
     List<Reservation> findBySpotIdAndRenterIdAndStatus(@Param("spotId") Long spotId,
                                                          @Param("renterId") Long renterId,
@@ -0,0 +1,166 @@
+package com.parkease.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the field names of a response to the SQL that produces them, so a {@code fields=}
+ * request selects only the columns, and joins only the tables, that its fields need. Rows
+ * come back as maps holding just the requested fields in the order asked for; a dotted name
+ * such as {@code spot.title} ends up in a nested map.
+ */
+public final class SqlProjection {
+
+    @FunctionalInterface
+    public interface ColumnReader {
+        Object read(ResultSet rs) throws SQLException;
+    }
+
+    private final Map<String, String> joins = new LinkedHashMap<>();
+
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+
+    private final Map<String, List<String>> groups = new HashMap<>();
+
+    /**
+     * Declares a join that fields can ask for; joins are emitted in declaration order.
+     */
+    public SqlProjection join(String name, String sql) {
+        joins.put(name, sql);
+        return this;
+    }
+
+    /**
+     * Declares a field read by {@code reader} from {@code columns}, needing {@code join}
+     * (may be null).
+     */
+    public SqlProjection field(String name, String columns, String join, ColumnReader reader) {
+        fields.put(name, new Field(columns, join, reader));
+        return this;
+    }
+
+    /**
+     * Lets {@code name} stand for several fields, e.g. {@code spot} for the usual spot summary.
+     */
+    public SqlProjection group(String name, String... members) {
+        groups.put(name, List.of(members));
+        return this;
+    }
+
+    /**
+     * Parses a comma-separated {@code fields} parameter. The {@code id} field is always
+     * included; {@code requiredJoins} are joined whatever the fields, e.g. for a WHERE clause.
+     */
+    public Selection select(String requested, String... requiredJoins) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String part : requested.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (groups.containsKey(name)) {
+                names.addAll(groups.get(name));
+            } else if (fields.containsKey(name)) {
+                names.add(name);
+            } else {
+                throw new RuntimeException("Unknown field: " + name);
+            }
+        }
+        Set<String> neededJoins = new LinkedHashSet<>(List.of(requiredJoins));
+        Set<String> columns = new LinkedHashSet<>();
+        for (String name : names) {
+            Field field = fields.get(name);
+            columns.add(field.columns);
+            if (field.join != null) {
+                neededJoins.add(field.join);
+            }
+        }
+        StringBuilder joinSql = new StringBuilder();
+        for (Map.Entry<String, String> join : joins.entrySet()) {
+            if (neededJoins.contains(join.getKey())) {
+                joinSql.append(join.getValue()).append(' ');
+            }
+        }
+        return new Selection(new ArrayList<>(names), String.join(", ", columns), joinSql.toString());
+    }
+
+    public static LocalDateTime localDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    public final class Selection {
+
+        private final List<String> names;
+
+        private final String columns;
+
+        private final String joins;
+
+        private Selection(List<String> names, String columns, String joins) {
+            this.names = names;
+            this.columns = columns;
+            this.joins = joins;
+        }
+
+        /**
+         * The SELECT list, without the SELECT keyword.
+         */
+        public String getColumns() {
+            return columns;
+        }
+
+        /**
+         * The JOIN clauses the fields need, ending in a space.
+         */
+        public String getJoins() {
+            return joins;
+        }
+
+        public RowMapper<Map<String, Object>> rowMapper() {
+            return (rs, rowNum) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (String name : names) {
+                    Object value = fields.get(name).reader.read(rs);
+                    int dot = name.indexOf('.');
+                    if (dot < 0) {
+                        row.put(name, value);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(
+                                name.substring(0, dot), key -> new LinkedHashMap<String, Object>());
+                        nested.put(name.substring(dot + 1), value);
+                    }
+                }
+                return row;
+            };
+        }
+    }
+
+    private static final class Field {
+
+        private final String columns;
+
+        private final String join;
+
+        private final ColumnReader reader;
+
+        Field(String columns, String join, ColumnReader reader) {
+            this.columns = columns;
+            this.join = join;
+            this.reader = reader;
+        }
+    }
+}
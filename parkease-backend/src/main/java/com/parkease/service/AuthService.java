@@ -1,5 +1,7 @@
 package com.parkease.service;
 
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
 import com.parkease.config.CustomUserDetails;
 import com.parkease.config.JwtUtil;
 import com.parkease.dto.AuthResponse;
@@ -32,6 +34,9 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
     
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already exists");
@@ -44,6 +49,7 @@ public class AuthService {
         user.setPhone(request.getPhone());
         
         user = userRepository.save(user);
+        cacheInvalidationBus.publish(InvalidationKind.USER, user.getId());
         
         String token = jwtUtil.generateToken(new CustomUserDetails(user));
         
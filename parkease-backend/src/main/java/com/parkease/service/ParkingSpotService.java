@@ -1,25 +1,40 @@
 package com.parkease.service;
 
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.config.ApiMetrics;
 import com.parkease.dto.ParkingSpotRequest;
 import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.dto.SpotClusterResponse;
 import com.parkease.entity.ParkingSpot;
 import com.parkease.entity.User;
+import com.parkease.enums.ReservationStatus;
+import com.parkease.repository.ParkingSpotJdbcRepository;
 import com.parkease.repository.ParkingSpotRepository;
+import com.parkease.repository.ReservationRepository;
 import com.parkease.repository.ReviewRepository;
 import com.parkease.repository.UserRepository;
+import com.parkease.storage.ThumbnailGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
-import com.parkease.enums.ReservationStatus;
-import com.parkease.repository.ReservationRepository;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +44,9 @@ public class ParkingSpotService {
     @Autowired
     private ParkingSpotRepository parkingSpotRepository;
     
+    @Autowired
+    private ParkingSpotJdbcRepository parkingSpotJdbcRepository;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -38,38 +56,226 @@ public class ParkingSpotService {
     @Autowired
     private ReservationRepository reservationRepository;
     
+    @Autowired
+    private SearchResultCache searchResultCache;
+    
+    @Autowired
+    private SpotClusterIndex spotClusterIndex;
+    
+    @Autowired
+    private SpotRanker spotRanker;
+    
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+    
+    @Autowired
+    private ApiMetrics apiMetrics;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${spots.batch.max-ids:200}")
+    private int maxBatchIds;
+    
+    /** For the uncached reads inside the cached paths, which may go to the replica */
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    void initReadOnlyTransaction() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Outside any transaction, so the search and the {@link SearchResultCache} fills read from
+     * the primary: a list or response read from a lagging replica would be served for as long
+     * as it stays cached, long after the invalidation that should have dropped it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ParkingSpotResponse> searchSpots(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax, String date) {
+        return apiMetrics.time("parkease.spots.search", "search",
+                () -> doSearchSpots(city, spotType, priceMin, priceMax, date),
+                spots -> spots.isEmpty() ? "empty" : ApiMetrics.SUCCESS);
+    }
+    
+    private List<ParkingSpotResponse> doSearchSpots(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax, String date) {
         String typeStr = spotType != null ? spotType.toUpperCase() : null;
-        List<ParkingSpot> spots = parkingSpotRepository.searchSpots(city, typeStr, priceMin, priceMax);
         
-        // Filter by date if provided
-        if (date != null && !date.isEmpty()) {
-            try {
-                LocalDate searchDate = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-                LocalDateTime startOfDay = searchDate.atStartOfDay();
-                LocalDateTime endOfDay = searchDate.plusDays(1).atStartOfDay();
-                
-                spots = spots.stream()
-                    .filter(spot -> {
-                        // Check if spot has any confirmed reservations on this date
-                        List<com.parkease.entity.Reservation> conflicts = reservationRepository.findConflictingReservations(
-                            spot.getId(), startOfDay, endOfDay, ReservationStatus.CONFIRMED
-                        );
-                        return conflicts.isEmpty();
-                    })
-                    .collect(Collectors.toList());
-            } catch (Exception e) {
-                // If date parsing fails, ignore date filter
+        // Filter by date if provided: exclude spots with a confirmed reservation on this date
+        LocalDate searchDate = parseSearchDate(date);
+        LocalDateTime startOfDay = searchDate != null ? searchDate.atStartOfDay() : null;
+        LocalDateTime endOfDay = searchDate != null ? searchDate.plusDays(1).atStartOfDay() : null;
+        
+        // Projection query: response columns, host name, rating summary and the date filter in one statement
+        return searchResultCache.get(SearchResultCache.Query.of(city, typeStr, priceMin, priceMax, searchDate),
+                () -> parkingSpotJdbcRepository.searchResponses(city, typeStr, priceMin, priceMax, startOfDay, endOfDay),
+                parkingSpotJdbcRepository::findResponsesByIds);
+    }
+    
+    /**
+     * The search with only the given comma-separated response fields, selected in SQL.
+     * Not served from the result cache, which holds full responses.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchSpotFields(String city, String spotType, BigDecimal priceMin,
+                                                      BigDecimal priceMax, String date, String fields) {
+        return apiMetrics.time("parkease.spots.search", "search_fields", () -> {
+            String typeStr = spotType != null ? spotType.toUpperCase() : null;
+            LocalDate searchDate = parseSearchDate(date);
+            LocalDateTime startOfDay = searchDate != null ? searchDate.atStartOfDay() : null;
+            LocalDateTime endOfDay = searchDate != null ? searchDate.plusDays(1).atStartOfDay() : null;
+            return parkingSpotJdbcRepository.searchFields(fields, city, typeStr, priceMin, priceMax, startOfDay, endOfDay);
+        }, spots -> spots.isEmpty() ? "empty" : ApiMetrics.SUCCESS);
+    }
+    
+    /**
+     * The {@code limit} best matches by {@link SpotRanker} score, best first. Candidates are
+     * scored as the rows arrive and only the survivors are loaded as full responses. The
+     * candidate scan runs in a read-only transaction of its own, so it may go to the replica;
+     * the responses are cached, so they are loaded outside it, from the primary (see
+     * {@link #searchSpots}).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ParkingSpotResponse> searchBestSpots(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax,
+                                                     String date, Double latitude, Double longitude, int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new RuntimeException("limit must be between 1 and 100");
+        }
+        return apiMetrics.time("parkease.spots.search", "search_best", () -> {
+            String typeStr = spotType != null ? spotType.toUpperCase() : null;
+            LocalDate searchDate = parseSearchDate(date);
+            LocalDateTime startOfDay = searchDate != null ? searchDate.atStartOfDay() : null;
+            LocalDateTime endOfDay = searchDate != null ? searchDate.plusDays(1).atStartOfDay() : null;
+            
+            SpotRanker.TopK best = spotRanker.topK(limit, latitude, longitude);
+            readOnlyTransaction.executeWithoutResult(status -> parkingSpotJdbcRepository.searchCandidates(
+                    city, typeStr, priceMin, priceMax, startOfDay, endOfDay, best));
+            return searchResultCache.getSpots(best.ids(), parkingSpotJdbcRepository::findResponsesByIds);
+        }, spots -> spots.isEmpty() ? "empty" : ApiMetrics.SUCCESS);
+    }
+    
+    static LocalDate parseSearchDate(String date) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            // If date parsing fails, ignore date filter
+            return null;
+        }
+    }
+    
+    /**
+     * The {@code k} available spots nearest to the point that have no confirmed reservation
+     * overlapping [start, end), nearest first, with {@code distanceKm} set. As in
+     * {@link #searchBestSpots}, only the conflict check may run on the replica.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ParkingSpotResponse> findNearestAvailable(double latitude, double longitude, LocalDateTime start,
+                                                          LocalDateTime end, int k, double radiusKm) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Coordinates are out of range");
+        }
+        if (!end.isAfter(start)) {
+            throw new RuntimeException("End time must be after start time");
+        }
+        if (k < 1 || k > 100) {
+            throw new RuntimeException("k must be between 1 and 100");
+        }
+        if (radiusKm <= 0 || radiusKm > 50) {
+            throw new RuntimeException("radiusKm must be greater than 0 and at most 50");
+        }
+        return apiMetrics.time("parkease.spots.nearest", "nearest", () -> {
+            List<SpotClusterIndex.Neighbor> nearest = spotClusterIndex.nearest(latitude, longitude, radiusKm, k,
+                    ids -> readOnlyTransaction.execute(status -> reservationRepository.findConflictingSpotIds(
+                            ids, start, end, ReservationStatus.CONFIRMED)));
+            List<ParkingSpotResponse> spots = searchResultCache.getSpots(
+                    nearest.stream().map(SpotClusterIndex.Neighbor::getId).toList(),
+                    parkingSpotJdbcRepository::findResponsesByIds);
+            List<ParkingSpotResponse> responses = new ArrayList<>(spots.size());
+            int next = 0;
+            for (ParkingSpotResponse spot : spots) {
+                while (nearest.get(next).getId() != spot.getId()) {
+                    // Deleted since the index was last refreshed
+                    next++;
+                }
+                // Cached responses are shared, so the distance goes on a copy
+                ParkingSpotResponse response = new ParkingSpotResponse();
+                BeanUtils.copyProperties(spot, response);
+                response.setDistanceKm(Math.round(nearest.get(next).getDistanceKm() * 1000) / 1000.0);
+                responses.add(response);
+                next++;
             }
+            return responses;
+        }, spots -> spots.isEmpty() ? "empty" : ApiMetrics.SUCCESS);
+    }
+    
+    /**
+     * Map clusters for {@code bbox} given as minLongitude,minLatitude,maxLongitude,maxLatitude.
+     * Outside any transaction, so the index is loaded and refreshed from the primary.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SpotClusterResponse> getClusters(String bbox, int zoom) {
+        double[] box = parseBbox(bbox);
+        return apiMetrics.time("parkease.spots.clusters", "clusters",
+                () -> spotClusterIndex.clusters(box[0], box[1], box[2], box[3], zoom));
+    }
+    
+    static double[] parseBbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new RuntimeException("bbox must be minLongitude,minLatitude,maxLongitude,maxLatitude");
         }
-        
-        return spots.stream().map(this::convertToResponse).collect(Collectors.toList());
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("bbox must be minLongitude,minLatitude,maxLongitude,maxLatitude");
+        }
+        if (box[0] < -180 || box[2] > 180 || box[1] < -90 || box[3] > 90 || box[0] > box[2] || box[1] > box[3]) {
+            throw new RuntimeException("bbox is out of range or crosses the antimeridian");
+        }
+        return box;
     }
     
+    /**
+     * Spots by id in the order asked for, each once; ids that don't exist are left out. Spots
+     * not in the response cache are loaded together, in one statement, from the primary
+     * (see {@link #searchSpots}).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ParkingSpotResponse> getSpotsByIds(List<Long> ids) {
+        List<Long> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (unique.size() > maxBatchIds) {
+            throw new RuntimeException("At most " + maxBatchIds + " spot ids can be requested at once");
+        }
+        return apiMetrics.time("parkease.spots.batch", "spot_batch",
+                () -> searchResultCache.getSpots(unique, parkingSpotJdbcRepository::findResponsesByIds));
+    }
+    
+    @Transactional(readOnly = true)
     public ParkingSpotResponse getSpotById(Long id) {
-        ParkingSpot spot = parkingSpotRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Parking spot not found"));
-        return convertToResponse(spot);
+        return apiMetrics.time("parkease.spots.detail", "spot_detail", () -> {
+            ParkingSpot spot = parkingSpotRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Parking spot not found"));
+            return convertToResponse(spot);
+        });
+    }
+    
+    /**
+     * {@link #getSpotById} for filling {@link SpotDetailCache}. Not read-only, so it reads from
+     * the primary: right after the post-commit eviction a replica may still have the old row,
+     * and a fill is served for as long as the entry lives.
+     */
+    @Transactional
+    public ParkingSpotResponse loadSpotDetail(Long id) {
+        return getSpotById(id);
     }
     
     public ParkingSpotResponse createSpot(ParkingSpotRequest request, Long hostId) {
@@ -93,6 +299,8 @@ public class ParkingSpotService {
         spot.setIsAvailable(request.getIsAvailable() != null ? request.getIsAvailable() : true);
         
         spot = parkingSpotRepository.save(spot);
+        cacheInvalidationBus.publish(InvalidationKind.SPOT, spot.getId());
+        cacheInvalidationBus.publish(InvalidationKind.CITY, SearchResultCache.cityKey(spot.getCity()));
         return convertToResponse(spot);
     }
     
@@ -104,6 +312,7 @@ public class ParkingSpotService {
             throw new RuntimeException("You are not authorized to update this spot");
         }
         
+        String previousCity = SearchResultCache.cityKey(spot.getCity());
         spot.setTitle(request.getTitle());
         spot.setDescription(request.getDescription());
         spot.setAddress(request.getAddress());
@@ -114,8 +323,11 @@ public class ParkingSpotService {
         spot.setLongitude(request.getLongitude());
         spot.setPricePerHour(request.getPricePerHour());
         spot.setPricePerDay(request.getPricePerDay());
-        if (request.getImageUrl() != null) {
+        if (request.getImageUrl() != null && !request.getImageUrl().equals(spot.getImageUrl())) {
+            // An external URL replaces an uploaded image and its thumbnails
             spot.setImageUrl(request.getImageUrl());
+            spot.setImageKey(null);
+            spot.setThumbnailsReady(false);
         }
         spot.setSpotType(request.getSpotType());
         if (request.getIsAvailable() != null) {
@@ -123,6 +335,13 @@ public class ParkingSpotService {
         }
         
         spot = parkingSpotRepository.save(spot);
+        cacheInvalidationBus.publish(InvalidationKind.SPOT, id);
+        String city = SearchResultCache.cityKey(spot.getCity());
+        cacheInvalidationBus.publish(InvalidationKind.CITY, city);
+        if (!city.equals(previousCity)) {
+            // The spot also left the searches of its old city
+            cacheInvalidationBus.publish(InvalidationKind.CITY, previousCity);
+        }
         return convertToResponse(spot);
     }
     
@@ -135,14 +354,22 @@ public class ParkingSpotService {
         }
         
         parkingSpotRepository.delete(spot);
+        cacheInvalidationBus.publish(InvalidationKind.SPOT, id);
+        cacheInvalidationBus.publish(InvalidationKind.CITY, SearchResultCache.cityKey(spot.getCity()));
     }
     
+    @Transactional(readOnly = true)
     public List<ParkingSpotResponse> getMySpots(Long hostId) {
         List<ParkingSpot> spots = parkingSpotRepository.findByHostId(hostId);
         return spots.stream().map(this::convertToResponse).collect(Collectors.toList());
     }
     
-    private ParkingSpotResponse convertToResponse(ParkingSpot spot) {
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMySpotFields(Long hostId, String fields) {
+        return parkingSpotJdbcRepository.findFieldsByHostId(hostId, fields);
+    }
+    
+    ParkingSpotResponse convertToResponse(ParkingSpot spot) {
         ParkingSpotResponse response = new ParkingSpotResponse();
         response.setId(spot.getId());
         response.setHostId(spot.getHostId());
@@ -160,6 +387,7 @@ public class ParkingSpotService {
         response.setPricePerHour(spot.getPricePerHour());
         response.setPricePerDay(spot.getPricePerDay());
         response.setImageUrl(spot.getImageUrl());
+        response.setThumbnailUrls(thumbnailGenerator.thumbnailUrls(spot.getImageKey(), spot.getThumbnailsReady()));
         response.setSpotType(spot.getSpotType());
         response.setIsAvailable(spot.getIsAvailable());
         response.setCreatedAt(spot.getCreatedAt());
@@ -0,0 +1,37 @@
+package com.parkease.service;
+
+import com.parkease.config.ApiMetrics;
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.repository.ReactiveParkingSpotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The search of {@link ParkingSpotService#searchSpots} as a non-blocking stream. Not
+ * {@code @Transactional}: the JPA transaction manager cannot drive a reactive pipeline,
+ * and the search is a single read-only statement anyway.
+ */
+@Service
+@ConditionalOnProperty(name = "reactive.r2dbc.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveSpotSearchService {
+    
+    @Autowired
+    private ReactiveParkingSpotRepository reactiveParkingSpotRepository;
+    
+    @Autowired
+    private ApiMetrics apiMetrics;
+    
+    public Flux<ParkingSpotResponse> searchSpots(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax, String date) {
+        String typeStr = spotType != null ? spotType.toUpperCase() : null;
+        LocalDate searchDate = ParkingSpotService.parseSearchDate(date);
+        return apiMetrics.time("parkease.spots.search", "search_stream",
+                reactiveParkingSpotRepository.searchResponses(city, typeStr, priceMin, priceMax,
+                        searchDate != null ? searchDate.atStartOfDay() : null,
+                        searchDate != null ? searchDate.plusDays(1).atStartOfDay() : null));
+    }
+}
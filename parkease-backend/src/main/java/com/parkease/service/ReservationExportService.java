@@ -0,0 +1,127 @@
+package com.parkease.service;
+
+import com.parkease.config.ApiMetrics;
+import com.parkease.exception.ServiceUnavailableException;
+import com.parkease.repository.ReservationJdbcRepository;
+import com.parkease.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+
+/**
+ * CSV export of a host's reservations for accounting. Rows go from a database cursor
+ * straight into the response, so memory use does not depend on the number of rows.
+ *
+ * An export keeps a pooled connection for as long as the client takes to download it, so
+ * only {@code max-concurrent} run at once; further requests get a 503 with Retry-After.
+ */
+@Service
+public class ReservationExportService {
+
+    private static final String[] HEADER = {"reservation_id", "spot_id", "spot_title", "renter_name",
+            "start_time", "end_time", "status", "total_price", "created_at"};
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Where the CSV goes; opened only once the export is sure to start, so a rejected export
+     * can still be answered with an ordinary error response.
+     */
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open() throws IOException;
+    }
+
+    private final ReservationJdbcRepository reservationJdbcRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ApiMetrics apiMetrics;
+
+    private final int fetchSize;
+
+    private final Semaphore permits;
+
+    private final int retryAfterSeconds;
+
+    public ReservationExportService(ReservationJdbcRepository reservationJdbcRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ApiMetrics apiMetrics,
+                                    @Value("${reservations.export.fetch-size:1000}") int fetchSize,
+                                    @Value("${reservations.export.max-concurrent:2}") int maxConcurrent,
+                                    @Value("${reservations.export.retry-after-seconds:30}") int retryAfterSeconds) {
+        this.reservationJdbcRepository = reservationJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.apiMetrics = apiMetrics;
+        this.fetchSize = fetchSize;
+        this.permits = new Semaphore(maxConcurrent);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Writes the host's reservations starting in {@code month} (all of them if null) as CSV.
+     */
+    public void exportHostReservations(Long hostId, YearMonth month, ExportTarget target) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many exports in progress, please retry later", retryAfterSeconds);
+        }
+        try {
+            LocalDateTime from = month != null ? month.atDay(1).atStartOfDay() : null;
+            LocalDateTime until = month != null ? month.plusMonths(1).atDay(1).atStartOfDay() : null;
+            CsvWriter csv = new CsvWriter(new OutputStreamWriter(target.open(), StandardCharsets.UTF_8));
+            csv.writeRecord(HEADER);
+            apiMetrics.run("parkease.reservations.export", "reservation_export",
+                    () -> readOnlyTransaction.executeWithoutResult(status ->
+                            reservationJdbcRepository.streamHostReservations(hostId, from, until, fetchSize, rs -> {
+                                try {
+                                    csv.writeRecord(
+                                            String.valueOf(rs.getLong("id")),
+                                            String.valueOf(rs.getLong("spot_id")),
+                                            spreadsheetSafe(rs.getString("spot_title")),
+                                            spreadsheetSafe(rs.getString("renter_name")),
+                                            format(rs.getTimestamp("start_time")),
+                                            format(rs.getTimestamp("end_time")),
+                                            rs.getString("status"),
+                                            rs.getBigDecimal("total_price").toPlainString(),
+                                            format(rs.getTimestamp("created_at")));
+                                } catch (IOException e) {
+                                    // Usually the client went away; ends the query too
+                                    throw new UncheckedIOException(e);
+                                }
+                            })));
+            csv.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().format(TIMESTAMP_FORMAT) : null;
+    }
+
+    /**
+     * Keeps user-entered text from being read as a formula when the file is opened in a
+     * spreadsheet.
+     */
+    static String spreadsheetSafe(String text) {
+        if (text != null && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            return "'" + text;
+        }
+        return text;
+    }
+}
@@ -0,0 +1,235 @@
+package com.parkease.service;
+
+import com.parkease.dto.ReservationEventResponse;
+import com.parkease.entity.Reservation;
+import com.parkease.enums.ReservationStatus;
+import com.parkease.repository.ReservationEventJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends reservation status transitions to the reservation_events journal without adding
+ * a write to the booking transaction. {@link #record} only queues the event once that
+ * transaction commits; one writer thread per node inserts the queue in batches of up to
+ * {@code batch-size}, waiting at most {@code linger-ms} for a batch to fill.
+ *
+ * The journal is best effort: an event is dropped and counted when the queue is full or a
+ * batch still fails after {@code max-attempts}, and events still queued when the process
+ * dies are lost. Events carry an id of their own, so retrying a batch that did commit
+ * inserts nothing twice. On shutdown the queue is written out before the pool closes.
+ */
+@Component
+public class ReservationJournal implements SmartLifecycle {
+
+    private final ReservationEventJdbcRepository repository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final BlockingQueue<ReservationEventResponse> queue;
+
+    private final int batchSize;
+
+    private final long lingerNanos;
+
+    private final int maxAttempts;
+
+    private final long retryDelayMillis;
+
+    private final long shutdownTimeoutMillis;
+
+    private final Timer flushTimer;
+
+    private final Counter writtenCounter;
+
+    private final Counter queueFullCounter;
+
+    private final Counter writeErrorCounter;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public ReservationJournal(ReservationEventJdbcRepository repository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${reservations.journal.enabled:true}") boolean enabled,
+                              @Value("${reservations.journal.queue-capacity:10000}") int queueCapacity,
+                              @Value("${reservations.journal.batch-size:500}") int batchSize,
+                              @Value("${reservations.journal.linger-ms:200}") long lingerMillis,
+                              @Value("${reservations.journal.max-attempts:3}") int maxAttempts,
+                              @Value("${reservations.journal.retry-delay-ms:1000}") long retryDelayMillis,
+                              @Value("${reservations.journal.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        Gauge.builder("reservations.journal.queue.depth", queue, BlockingQueue::size)
+                .description("Journal events waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("reservations.journal.flush")
+                .description("Time to insert one batch of journal events")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("reservations.journal.written")
+                .register(meterRegistry);
+        this.queueFullCounter = Counter.builder("reservations.journal.dropped")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.writeErrorCounter = Counter.builder("reservations.journal.dropped")
+                .tag("reason", "write_error")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Journals the transition of {@code reservation}, already saved with its new status, from
+     * {@code fromStatus} (null when it was just created) by {@code actorId}. The event is
+     * queued after the current transaction commits, and not at all if it rolls back.
+     */
+    public void record(Reservation reservation, Long hostId, ReservationStatus fromStatus, Long actorId) {
+        if (!enabled) {
+            return;
+        }
+        ReservationEventResponse event = new ReservationEventResponse(null, UUID.randomUUID(),
+                reservation.getId(), reservation.getSpotId(), hostId, fromStatus, reservation.getStatus(),
+                actorId, LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(event);
+            }
+        });
+    }
+
+    private void enqueue(ReservationEventResponse event) {
+        if (!queue.offer(event)) {
+            queueFullCounter.increment();
+        }
+    }
+
+    private void drain() {
+        List<ReservationEventResponse> batch = new ArrayList<>(batchSize);
+        // After stop() the loop goes on until the queue is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                ReservationEventResponse first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ReservationEventResponse next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<ReservationEventResponse> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.insertAll(batch));
+                flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                writtenCounter.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || Thread.currentThread().isInterrupted()) {
+                    writeErrorCounter.increment(batch.size());
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(retryDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "reservation-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Below the web server's phases, so the writer starts before requests arrive and stops
+     * only after in-flight requests have finished during a graceful shutdown.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+}
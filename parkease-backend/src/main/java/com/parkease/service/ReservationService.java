@@ -1,5 +1,9 @@
 package com.parkease.service;
 
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.config.ApiMetrics;
+import com.parkease.dto.ReservationEventResponse;
 import com.parkease.dto.ReservationRequest;
 import com.parkease.dto.ReservationResponse;
 import com.parkease.entity.ParkingSpot;
@@ -7,9 +11,12 @@ import com.parkease.entity.Reservation;
 import com.parkease.entity.User;
 import com.parkease.enums.ReservationStatus;
 import com.parkease.repository.ParkingSpotRepository;
+import com.parkease.repository.ReservationEventJdbcRepository;
+import com.parkease.repository.ReservationJdbcRepository;
 import com.parkease.repository.ReservationRepository;
 import com.parkease.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +24,7 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,12 +34,33 @@ public class ReservationService {
     @Autowired
     private ReservationRepository reservationRepository;
     
+    @Autowired
+    private ReservationJdbcRepository reservationJdbcRepository;
+    
     @Autowired
     private ParkingSpotRepository parkingSpotRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private ApiMetrics apiMetrics;
+    
+    @Autowired
+    private ReservationJournal reservationJournal;
+    
+    @Autowired
+    private ReservationEventJdbcRepository reservationEventJdbcRepository;
+    
+    @Value("${reservations.journal.replay-max-limit:1000}")
+    private int maxJournalLimit;
+    
+    @Value("${reservations.journal.replay-settle-ms:5000}")
+    private long journalSettleMillis;
+    
     public ReservationResponse createReservation(ReservationRequest request, Long renterId) {
         ParkingSpot spot = parkingSpotRepository.findById(request.getSpotId())
                 .orElseThrow(() -> new RuntimeException("Parking spot not found"));
@@ -50,19 +79,21 @@ public class ReservationService {
         }
         
         // Check for conflicts
-        List<Reservation> conflicts = reservationRepository.findConflictingReservations(
-                request.getSpotId(),
-                request.getStartTime(),
-                request.getEndTime(),
-                ReservationStatus.CONFIRMED
-        );
+        List<Reservation> conflicts = apiMetrics.time("parkease.reservations.conflict_check", "create_reservation",
+                () -> reservationRepository.findConflictingReservations(
+                        request.getSpotId(),
+                        request.getStartTime(),
+                        request.getEndTime(),
+                        ReservationStatus.CONFIRMED),
+                ReservationService::conflictOutcome);
         
         if (!conflicts.isEmpty()) {
             throw new RuntimeException("Parking spot is already booked for this time period");
         }
         
         // Calculate price
-        BigDecimal totalPrice = calculatePrice(spot, request.getStartTime(), request.getEndTime());
+        BigDecimal totalPrice = apiMetrics.time("parkease.reservations.price_calculation", "create_reservation",
+                () -> calculatePrice(spot, request.getStartTime(), request.getEndTime()));
         
         Reservation reservation = new Reservation();
         reservation.setSpotId(request.getSpotId());
@@ -73,19 +104,35 @@ public class ReservationService {
         reservation.setStatus(ReservationStatus.PENDING);
         
         reservation = reservationRepository.save(reservation);
+        reservationJournal.record(reservation, spot.getHostId(), null, renterId);
         return convertToResponse(reservation);
     }
     
+    @Transactional(readOnly = true)
     public List<ReservationResponse> getMyReservations(Long renterId) {
         List<Reservation> reservations = reservationRepository.findByRenterId(renterId);
         return reservations.stream().map(this::convertToResponse).collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<ReservationResponse> getHostingReservations(Long hostId) {
         List<Reservation> reservations = reservationRepository.findByHostId(hostId);
         return reservations.stream().map(this::convertToResponse).collect(Collectors.toList());
     }
     
+    /**
+     * The renter's reservations with only the given comma-separated fields, in one statement.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMyReservationFields(Long renterId, String fields) {
+        return reservationJdbcRepository.findFieldsByRenterId(renterId, fields);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getHostingReservationFields(Long hostId, String fields) {
+        return reservationJdbcRepository.findFieldsByHostId(hostId, fields);
+    }
+    
     public ReservationResponse confirmReservation(Long id, Long hostId) {
         Reservation reservation = reservationRepository.findByIdAndSpotHostId(id, hostId)
                 .orElseThrow(() -> new RuntimeException("Reservation not found or you are not authorized"));
@@ -95,12 +142,14 @@ public class ReservationService {
         }
         
         // Check for conflicts again before confirming
-        List<Reservation> conflicts = reservationRepository.findConflictingReservations(
-                reservation.getSpotId(),
-                reservation.getStartTime(),
-                reservation.getEndTime(),
-                ReservationStatus.CONFIRMED
-        );
+        Reservation pending = reservation;
+        List<Reservation> conflicts = apiMetrics.time("parkease.reservations.conflict_check", "confirm_reservation",
+                () -> reservationRepository.findConflictingReservations(
+                        pending.getSpotId(),
+                        pending.getStartTime(),
+                        pending.getEndTime(),
+                        ReservationStatus.CONFIRMED),
+                ReservationService::conflictOutcome);
         
         if (!conflicts.isEmpty() && !conflicts.get(0).getId().equals(id)) {
             throw new RuntimeException("Parking spot is already booked for this time period");
@@ -108,6 +157,10 @@ public class ReservationService {
         
         reservation.setStatus(ReservationStatus.CONFIRMED);
         reservation = reservationRepository.save(reservation);
+        reservationJournal.record(reservation, hostId, ReservationStatus.PENDING, hostId);
+        // The spot drops out of date searches for the days it now blocks
+        cacheInvalidationBus.publish(InvalidationKind.DATES,
+                SearchResultCache.datesKey(reservation.getStartTime(), reservation.getEndTime()));
         return convertToResponse(reservation);
     }
     
@@ -130,12 +183,54 @@ public class ReservationService {
             throw new RuntimeException("Cannot cancel this reservation");
         }
         
+        ReservationStatus previous = reservation.getStatus();
+        boolean wasConfirmed = previous == ReservationStatus.CONFIRMED;
         reservation.setStatus(ReservationStatus.CANCELLED);
         reservation = reservationRepository.save(reservation);
+        reservationJournal.record(reservation, spot.getHostId(), previous, userId);
+        if (wasConfirmed) {
+            cacheInvalidationBus.publish(InvalidationKind.DATES,
+                    SearchResultCache.datesKey(reservation.getStartTime(), reservation.getEndTime()));
+        }
         return convertToResponse(reservation);
     }
     
-    private BigDecimal calculatePrice(ParkingSpot spot, LocalDateTime startTime, LocalDateTime endTime) {
+    /**
+     * The journaled status transitions of a reservation, oldest first, for its renter or the
+     * spot's host. Transitions are written shortly after they commit, so the latest may not
+     * be listed yet.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationEventResponse> getHistory(Long id, Long userId) {
+        Reservation reservation = reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+        if (!reservation.getRenterId().equals(userId)) {
+            ParkingSpot spot = parkingSpotRepository.findById(reservation.getSpotId())
+                    .orElseThrow(() -> new RuntimeException("Parking spot not found"));
+            if (!spot.getHostId().equals(userId)) {
+                throw new RuntimeException("You are not authorized to view this reservation");
+            }
+        }
+        return reservationEventJdbcRepository.findByReservationId(id);
+    }
+    
+    /**
+     * A page of the journal for the host's spots, in id order, for replaying into analytics:
+     * pass the last id seen as {@code afterId} to continue.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationEventResponse> getHostingJournal(Long hostId, long afterId, int limit) {
+        if (limit < 1 || limit > maxJournalLimit) {
+            throw new RuntimeException("limit must be between 1 and " + maxJournalLimit);
+        }
+        return reservationEventJdbcRepository.findByHostIdAfter(hostId, afterId, limit, journalSettleMillis);
+    }
+    
+    static String conflictOutcome(List<Reservation> conflicts) {
+        return conflicts.isEmpty() ? "clear" : "conflict";
+    }
+    
+    BigDecimal calculatePrice(ParkingSpot spot, LocalDateTime startTime, LocalDateTime endTime) {
         Duration duration = Duration.between(startTime, endTime);
         long totalHours = duration.toHours();
         long totalMinutes = duration.toMinutes();
@@ -1,5 +1,7 @@
 package com.parkease.service;
 
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
 import com.parkease.dto.ReviewRequest;
 import com.parkease.dto.ReviewResponse;
 import com.parkease.entity.ParkingSpot;
@@ -34,6 +36,9 @@ public class ReviewService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
     public ReviewResponse createReview(Long spotId, ReviewRequest request, Long renterId) {
         ParkingSpot spot = parkingSpotRepository.findById(spotId)
                 .orElseThrow(() -> new RuntimeException("Parking spot not found"));
@@ -58,9 +63,12 @@ public class ReviewService {
         review.setComment(request.getComment());
         
         review = reviewRepository.save(review);
+        // The spot detail carries the rating summary
+        cacheInvalidationBus.publish(InvalidationKind.SPOT, spotId);
         return convertToResponse(review);
     }
     
+    @Transactional(readOnly = true)
     public List<ReviewResponse> getReviewsBySpotId(Long spotId) {
         List<Review> reviews = reviewRepository.findBySpotId(spotId);
         return reviews.stream().map(this::convertToResponse).collect(Collectors.toList());
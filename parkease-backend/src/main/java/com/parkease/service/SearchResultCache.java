@@ -0,0 +1,237 @@
+package com.parkease.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.parkease.cache.CacheInvalidationHandler;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.dto.ParkingSpotResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Results of hot searches, kept as ordered lists of spot ids per normalized {@link Query}
+ * next to a cache of the spot responses themselves. A repeated search costs no query at
+ * all; a review only evicts one spot response, not every list the spot appears in.
+ *
+ * Lists are dropped precisely, through the {@link com.parkease.cache.CacheInvalidationBus}:
+ * a {@code CITY} event drops the lists for that city and those without a city filter, a
+ * {@code DATES} event the lists filtered on one of those dates. A search that overlaps any
+ * invalidation is returned but not kept, since it may have read the state from before it.
+ * That only holds for reads from the primary, so callers must not fill it from the replica.
+ * Cached responses are shared between requests and must not be modified.
+ */
+@Component
+public class SearchResultCache implements CacheInvalidationHandler {
+
+    private final boolean enabled;
+
+    private final Cache<Query, List<Long>> results;
+
+    private final Cache<Long, ParkingSpotResponse> spots;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SearchResultCache(@Value("${spots.search-cache.enabled:true}") boolean enabled,
+                             @Value("${spots.search-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${spots.search-cache.expire-after-write-ms:30000}") long expireAfterWriteMillis,
+                             @Value("${spots.search-cache.spot-maximum-size:50000}") long spotMaximumSize,
+                             @Value("${spots.search-cache.spot-expire-after-write-ms:300000}") long spotExpireAfterWriteMillis,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMillis))
+                .recordStats()
+                .build();
+        this.spots = Caffeine.newBuilder()
+                .maximumSize(spotMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(spotExpireAfterWriteMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "search-results");
+        CaffeineCacheMetrics.monitor(meterRegistry, spots, "search-spots");
+    }
+
+    /**
+     * Returns the responses for {@code query} in search order. On a miss {@code search} runs
+     * once, however many requests are waiting for the same query; on a hit only the spots that
+     * dropped out of the response cache are fetched, all at once, through {@code loader}.
+     */
+    public List<ParkingSpotResponse> get(Query query, Supplier<List<ParkingSpotResponse>> search,
+                                         Function<Collection<Long>, List<ParkingSpotResponse>> loader) {
+        if (!enabled) {
+            return search.get();
+        }
+        long generation = invalidations.get();
+        List<List<ParkingSpotResponse>> searched = new ArrayList<>(1);
+        List<Long> ids = results.get(query, q -> {
+            List<ParkingSpotResponse> responses = search.get();
+            searched.add(responses);
+            spots.putAll(byId(responses));
+            return responses.stream().map(ParkingSpotResponse::getId).toList();
+        });
+        if (!searched.isEmpty()) {
+            if (invalidations.get() != generation) {
+                // A write committed while we searched; what we read may be from before it
+                results.asMap().remove(query, ids);
+                spots.invalidateAll(ids);
+            }
+            return searched.get(0);
+        }
+        return hydrate(ids, loader);
+    }
+
+    /**
+     * Responses for {@code ids} in the same order, from the response cache where possible;
+     * {@code loader} gets the rest in one call. Ids of deleted spots are skipped.
+     */
+    public List<ParkingSpotResponse> getSpots(List<Long> ids, Function<Collection<Long>, List<ParkingSpotResponse>> loader) {
+        if (!enabled) {
+            return inOrder(ids, byId(loader.apply(ids)));
+        }
+        return hydrate(ids, loader);
+    }
+
+    private List<ParkingSpotResponse> hydrate(List<Long> ids, Function<Collection<Long>, List<ParkingSpotResponse>> loader) {
+        long generation = invalidations.get();
+        Map<Long, ParkingSpotResponse> found = spots.getAll(ids, missing -> byId(loader.apply(List.copyOf(missing))));
+        if (invalidations.get() != generation) {
+            spots.invalidateAll(ids);
+        }
+        // A cached list may name a spot deleted since; its CITY event is about to drop the list
+        return inOrder(ids, found);
+    }
+
+    private static List<ParkingSpotResponse> inOrder(List<Long> ids, Map<Long, ParkingSpotResponse> found) {
+        List<ParkingSpotResponse> responses = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ParkingSpotResponse response = found.get(id);
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    private static Map<Long, ParkingSpotResponse> byId(List<ParkingSpotResponse> responses) {
+        Map<Long, ParkingSpotResponse> byId = new HashMap<>(responses.size() * 2);
+        for (ParkingSpotResponse response : responses) {
+            byId.put(response.getId(), response);
+        }
+        return byId;
+    }
+
+    @Override
+    public void invalidate(InvalidationKind kind, String key) {
+        invalidations.incrementAndGet();
+        switch (kind) {
+            case SPOT -> spots.invalidate(Long.valueOf(key));
+            case CITY -> results.asMap().keySet().removeIf(query -> query.city == null || query.city.equals(key));
+            case DATES -> {
+                int slash = key.indexOf('/');
+                LocalDate from = LocalDate.parse(key.substring(0, slash));
+                LocalDate to = LocalDate.parse(key.substring(slash + 1));
+                results.asMap().keySet().removeIf(query ->
+                        query.date != null && !query.date.isBefore(from) && !query.date.isAfter(to));
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        results.invalidateAll();
+        spots.invalidateAll();
+    }
+
+    /**
+     * Key of the {@code CITY} event for spots in {@code city}, matching how searches compare
+     * cities.
+     */
+    public static String cityKey(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Key of the {@code DATES} event for a reservation over [start, end): the first and the
+     * last day it blocks in a date search.
+     */
+    public static String datesKey(LocalDateTime start, LocalDateTime end) {
+        LocalDate first = start.toLocalDate();
+        LocalDate last = end.isAfter(start) ? end.minusNanos(1).toLocalDate() : first;
+        return first + "/" + last;
+    }
+
+    /**
+     * Search parameters in normal form, so that equivalent searches share an entry.
+     */
+    public static final class Query {
+
+        private final String city;
+
+        private final String spotType;
+
+        private final BigDecimal priceMin;
+
+        private final BigDecimal priceMax;
+
+        private final LocalDate date;
+
+        private Query(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax, LocalDate date) {
+            this.city = city;
+            this.spotType = spotType;
+            this.priceMin = priceMin;
+            this.priceMax = priceMax;
+            this.date = date;
+        }
+
+        public static Query of(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax, LocalDate date) {
+            return new Query(
+                    city != null ? cityKey(city) : null,
+                    spotType != null ? spotType.toUpperCase(Locale.ROOT) : null,
+                    // 5 and 5.00 are the same filter but not equal BigDecimals
+                    priceMin != null ? priceMin.stripTrailingZeros() : null,
+                    priceMax != null ? priceMax.stripTrailingZeros() : null,
+                    date);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Query query)) {
+                return false;
+            }
+            return Objects.equals(city, query.city)
+                    && Objects.equals(spotType, query.spotType)
+                    && Objects.equals(priceMin, query.priceMin)
+                    && Objects.equals(priceMax, query.priceMax)
+                    && Objects.equals(date, query.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(city, spotType, priceMin, priceMax, date);
+        }
+    }
+}
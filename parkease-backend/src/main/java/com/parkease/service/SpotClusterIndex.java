@@ -0,0 +1,476 @@
+package com.parkease.service;
+
+import com.parkease.cache.CacheInvalidationHandler;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.dto.SpotClusterResponse;
+import com.parkease.repository.ParkingSpotJdbcRepository;
+import com.parkease.repository.ParkingSpotJdbcRepository.SpotLocation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Map clusters of available spots, precomputed for every zoom level up to {@code max-zoom}.
+ * Each level is a grid of {@code cells-per-tile}² cells per Web Mercator tile, and a cell
+ * keeps the count, coordinate sums and lowest hourly price of its spots, so a map view is
+ * answered by reading the cells inside its bounding box. A cell at zoom z covers exactly
+ * four cells at z + 1, which is what keeps the minimum price exact when a spot leaves.
+ *
+ * The finest level doubles as the spatial index for {@link #nearest} queries.
+ *
+ * Built from the database on first use. {@code SPOT} events only queue the spot id; the next
+ * map or nearest query reads the queued rows by id, in one statement, and just the spots that
+ * moved, changed price or disappeared touch the grid. Reads go to the primary: the index is
+ * kept until the next change, so a row read from a lagging replica would stay wrong.
+ */
+@Component
+public class SpotClusterIndex implements CacheInvalidationHandler {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /** Fewest candidates checked for availability at a time */
+    private static final int MIN_AVAILABILITY_BATCH = 16;
+
+    /** Most changed spots read back in one statement */
+    private static final int REFRESH_BATCH = 1000;
+
+    private final ParkingSpotJdbcRepository parkingSpotJdbcRepository;
+
+    private final int maxZoom;
+
+    private final int scale;
+
+    /** Cells by key, one map per zoom level from 0 to maxZoom */
+    private final List<Map<Long, Cell>> levels;
+
+    /** Spot ids per cell of the finest level, to recompute its minimum price */
+    private final Map<Long, Set<Long>> finestMembers = new HashMap<>();
+
+    private final Map<Long, IndexedSpot> spots = new HashMap<>();
+
+    /** Spots changed since they were last read, applied before the next query */
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Serializes loads and refreshes, so an older read of a spot can't be applied last */
+    private final Object refreshLock = new Object();
+
+    private volatile boolean loaded;
+
+    public SpotClusterIndex(ParkingSpotJdbcRepository parkingSpotJdbcRepository,
+                            @Value("${spots.clusters.max-zoom:16}") int maxZoom,
+                            @Value("${spots.clusters.cells-per-tile:4}") int cellsPerTile,
+                            MeterRegistry meterRegistry) {
+        if (Integer.bitCount(cellsPerTile) != 1 || cellsPerTile > 256) {
+            throw new IllegalArgumentException("spots.clusters.cells-per-tile must be a power of two up to 256");
+        }
+        int bits = maxZoom + Integer.numberOfTrailingZeros(cellsPerTile);
+        if (maxZoom < 0 || bits > 30) {
+            throw new IllegalArgumentException("spots.clusters.max-zoom out of range: " + maxZoom);
+        }
+        this.parkingSpotJdbcRepository = parkingSpotJdbcRepository;
+        this.maxZoom = maxZoom;
+        this.scale = 1 << bits;
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            levels.add(new HashMap<>());
+        }
+
+        Gauge.builder("spots.clusters.indexed", this, index -> index.spots.size())
+                .description("Spots in the map cluster index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Clusters whose cell intersects the box, at {@code zoom} clamped to [0, max-zoom].
+     * Longitudes must not cross the antimeridian (minLongitude <= maxLongitude).
+     */
+    public List<SpotClusterResponse> clusters(double minLongitude, double minLatitude,
+                                              double maxLongitude, double maxLatitude, int zoom) {
+        ensureLoaded();
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        int shift = maxZoom - level;
+        int x0 = cellX(minLongitude) >> shift;
+        int x1 = cellX(maxLongitude) >> shift;
+        // Mercator y grows southwards
+        int y0 = cellY(maxLatitude) >> shift;
+        int y1 = cellY(minLatitude) >> shift;
+
+        List<SpotClusterResponse> clusters = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Cell> cells = levels.get(level);
+            if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) <= cells.size()) {
+                for (int x = x0; x <= x1; x++) {
+                    for (int y = y0; y <= y1; y++) {
+                        Cell cell = cells.get(key(x, y));
+                        if (cell != null) {
+                            clusters.add(cell.toResponse());
+                        }
+                    }
+                }
+            } else {
+                // Box larger than the populated part of the level: scan the cells instead
+                for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                    int x = (int) (entry.getKey() >>> 32);
+                    int y = (int) entry.getKey().longValue();
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        clusters.add(entry.getValue().toResponse());
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return clusters;
+    }
+
+    /**
+     * The {@code k} spots nearest to the point within {@code maxDistanceKm} that
+     * {@code unavailable} does not rule out, nearest first. The finest grid is walked in
+     * square rings around the point. Spots are handed to {@code unavailable} in small batches
+     * once no unvisited cell can hold a closer one, and the walk stops at the k-th available
+     * spot, so the work depends on k and local density rather than on the number of spots.
+     *
+     * @param unavailable returns those of the given ids that must be skipped
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, double maxDistanceKm, int k,
+                                  Function<List<Long>, Collection<Long>> unavailable) {
+        ensureLoaded();
+        int centerX = cellX(longitude);
+        int centerY = cellY(latitude);
+        // Cells shrink towards the poles; size the rings by the smallest cell within reach
+        double farthestLatitude = Math.min(MAX_LATITUDE, Math.abs(latitude) + Math.toDegrees(maxDistanceKm / EARTH_RADIUS_KM));
+        double cellKm = 2 * Math.PI * EARTH_RADIUS_KM * Math.cos(Math.toRadians(farthestLatitude)) / scale;
+        int maxRing = (int) Math.min(scale, Math.ceil(maxDistanceKm / cellKm) + 1);
+
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::getDistanceKm));
+        List<Neighbor> found = new ArrayList<>(k);
+        for (int ring = 0; ring <= maxRing && found.size() < k; ring++) {
+            collectRing(centerX, centerY, ring, latitude, longitude, maxDistanceKm, candidates);
+            // Every cell outside this ring is at least `ring` whole cells from the point
+            double settledKm = ring == maxRing ? Double.MAX_VALUE : ring * cellKm;
+            while (found.size() < k && !candidates.isEmpty() && candidates.peek().distanceKm <= settledKm) {
+                List<Neighbor> batch = new ArrayList<>();
+                int batchSize = Math.max(MIN_AVAILABILITY_BATCH, 2 * (k - found.size()));
+                while (batch.size() < batchSize && !candidates.isEmpty() && candidates.peek().distanceKm <= settledKm) {
+                    batch.add(candidates.poll());
+                }
+                Set<Long> skipped = new HashSet<>(unavailable.apply(batch.stream().map(Neighbor::getId).toList()));
+                for (Neighbor neighbor : batch) {
+                    if (found.size() < k && !skipped.contains(neighbor.id)) {
+                        found.add(neighbor);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void collectRing(int centerX, int centerY, int ring, double latitude, double longitude,
+                             double maxDistanceKm, PriorityQueue<Neighbor> candidates) {
+        lock.readLock().lock();
+        try {
+            for (int dx = -ring; dx <= ring; dx++) {
+                // Full top and bottom rows, only the two edge cells of the rows in between
+                int step = Math.abs(dx) == ring ? 1 : Math.max(1, 2 * ring);
+                for (int dy = -ring; dy <= ring; dy += step) {
+                    int x = centerX + dx;
+                    int y = centerY + dy;
+                    if (x < 0 || y < 0 || x >= scale || y >= scale) {
+                        continue;
+                    }
+                    Set<Long> members = finestMembers.get(key(x, y));
+                    if (members == null) {
+                        continue;
+                    }
+                    for (Long id : members) {
+                        IndexedSpot spot = spots.get(id);
+                        double distanceKm = distanceKm(latitude, longitude, spot.latitude, spot.longitude);
+                        if (distanceKm <= maxDistanceKm) {
+                            candidates.add(new Neighbor(spot.id, distanceKm));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Great-circle distance by the haversine formula.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Only notes the spot, so nothing is read on the committing thread or the bus listener.
+     */
+    @Override
+    public void invalidate(InvalidationKind kind, String key) {
+        if (kind == InvalidationKind.SPOT) {
+            changed.add(Long.valueOf(key));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (refreshLock) {
+            // Rebuilt from scratch on the next request
+            loaded = false;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded && changed.isEmpty()) {
+            return;
+        }
+        synchronized (refreshLock) {
+            if (!loaded) {
+                load();
+            }
+            while (!changed.isEmpty()) {
+                refresh();
+            }
+        }
+    }
+
+    private void load() {
+        // Changes noted before this read are in it; those noted during it are read again after
+        changed.clear();
+        List<SpotLocation> locations = parkingSpotJdbcRepository.findAvailableLocations();
+        lock.writeLock().lock();
+        try {
+            levels.forEach(Map::clear);
+            finestMembers.clear();
+            spots.clear();
+            locations.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+    }
+
+    /**
+     * Reads up to {@link #REFRESH_BATCH} changed spots again; those not returned are removed.
+     */
+    private void refresh() {
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> iterator = changed.iterator(); iterator.hasNext() && ids.size() < REFRESH_BATCH; ) {
+            // Taken off before the read, so a change committed during it is noted again
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+        List<SpotLocation> locations;
+        try {
+            locations = parkingSpotJdbcRepository.findAvailableLocationsByIds(ids);
+        } catch (RuntimeException e) {
+            changed.addAll(ids);
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            Set<Long> gone = new HashSet<>(ids);
+            for (SpotLocation location : locations) {
+                gone.remove(location.getId());
+                put(location);
+            }
+            gone.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(SpotLocation location) {
+        IndexedSpot spot = new IndexedSpot(location.getId(),
+                location.getLatitude(), location.getLongitude(), location.getPricePerHour(),
+                cellX(location.getLongitude()), cellY(location.getLatitude()));
+        IndexedSpot previous = spots.get(spot.id);
+        if (previous != null) {
+            if (previous.sameAs(spot)) {
+                return;
+            }
+            remove(spot.id);
+        }
+        spots.put(spot.id, spot);
+        finestMembers.computeIfAbsent(key(spot.x, spot.y), cell -> new HashSet<>()).add(spot.id);
+        for (int level = maxZoom; level >= 0; level--) {
+            int shift = maxZoom - level;
+            levels.get(level).computeIfAbsent(key(spot.x >> shift, spot.y >> shift), cell -> new Cell()).add(spot);
+        }
+    }
+
+    private void remove(Long id) {
+        IndexedSpot spot = spots.remove(id);
+        if (spot == null) {
+            return;
+        }
+        long finestKey = key(spot.x, spot.y);
+        Set<Long> members = finestMembers.get(finestKey);
+        members.remove(id);
+        if (members.isEmpty()) {
+            finestMembers.remove(finestKey);
+        }
+        // Finest level first: a coarser cell's minimum is recomputed from its children
+        for (int level = maxZoom; level >= 0; level--) {
+            int shift = maxZoom - level;
+            int x = spot.x >> shift;
+            int y = spot.y >> shift;
+            Map<Long, Cell> cells = levels.get(level);
+            Cell cell = cells.get(key(x, y));
+            cell.count--;
+            cell.latitudeSum -= spot.latitude;
+            cell.longitudeSum -= spot.longitude;
+            if (cell.count == 0) {
+                cells.remove(key(x, y));
+            } else if (spot.price.compareTo(cell.minPrice) == 0) {
+                cell.minPrice = level == maxZoom ? minPrice(members) : minPrice(level + 1, x, y);
+            }
+        }
+    }
+
+    private BigDecimal minPrice(Set<Long> ids) {
+        BigDecimal min = null;
+        for (Long id : ids) {
+            BigDecimal price = spots.get(id).price;
+            if (min == null || price.compareTo(min) < 0) {
+                min = price;
+            }
+        }
+        return min;
+    }
+
+    private BigDecimal minPrice(int childLevel, int x, int y) {
+        BigDecimal min = null;
+        Map<Long, Cell> children = levels.get(childLevel);
+        for (int dx = 0; dx < 2; dx++) {
+            for (int dy = 0; dy < 2; dy++) {
+                Cell child = children.get(key(2 * x + dx, 2 * y + dy));
+                if (child != null && (min == null || child.minPrice.compareTo(min) < 0)) {
+                    min = child.minPrice;
+                }
+            }
+        }
+        return min;
+    }
+
+    private int cellX(double longitude) {
+        double x = (longitude + 180) / 360;
+        return clamp((long) Math.floor(x * scale));
+    }
+
+    private int cellY(double latitude) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double y = (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+        return clamp((long) Math.floor(y * scale));
+    }
+
+    private int clamp(long cell) {
+        return (int) Math.max(0, Math.min(scale - 1, cell));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static final class Neighbor {
+
+        private final long id;
+
+        private final double distanceKm;
+
+        Neighbor(long id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final class Cell {
+
+        private int count;
+
+        private double latitudeSum;
+
+        private double longitudeSum;
+
+        private BigDecimal minPrice;
+
+        void add(IndexedSpot spot) {
+            count++;
+            latitudeSum += spot.latitude;
+            longitudeSum += spot.longitude;
+            if (minPrice == null || spot.price.compareTo(minPrice) < 0) {
+                minPrice = spot.price;
+            }
+        }
+
+        SpotClusterResponse toResponse() {
+            return new SpotClusterResponse(latitudeSum / count, longitudeSum / count, count, minPrice);
+        }
+    }
+
+    private static final class IndexedSpot {
+
+        private final long id;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private final BigDecimal price;
+
+        private final int x;
+
+        private final int y;
+
+        IndexedSpot(long id, double latitude, double longitude, BigDecimal price, int x, int y) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.price = price;
+            this.x = x;
+            this.y = y;
+        }
+
+        boolean sameAs(IndexedSpot other) {
+            return latitude == other.latitude
+                    && longitude == other.longitude
+                    && Objects.equals(price, other.price);
+        }
+    }
+}
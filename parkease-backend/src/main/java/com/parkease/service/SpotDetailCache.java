@@ -0,0 +1,146 @@
+package com.parkease.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.parkease.cache.CacheInvalidationHandler;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.dto.ParkingSpotResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Spot detail responses kept as the exact bytes written to the client, so a hot
+ * {@code GET /api/spots/{id}} skips the entity load, {@code convertToResponse} and Jackson.
+ * Each entry carries a gzip copy built on first demand and a strong ETag for each of the two
+ * representations.
+ *
+ * Entries are dropped through the {@link com.parkease.cache.CacheInvalidationBus} after the
+ * transaction that changed the spot or its reviews commits, on every node; evicting earlier
+ * would let a concurrent reader cache the pre-commit state again. For the same reason the
+ * loader must read from the primary; a lagging replica would refill the old state.
+ */
+@Component
+public class SpotDetailCache implements CacheInvalidationHandler {
+
+    private final Cache<Long, Entry> cache;
+
+    private final ObjectMapper objectMapper;
+
+    private final int gzipMinBytes;
+
+    public SpotDetailCache(@Value("${spots.detail-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${spots.detail-cache.expire-after-write-ms:300000}") long expireAfterWriteMillis,
+                           @Value("${spots.detail-cache.gzip-min-bytes:1024}") int gzipMinBytes,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMillis))
+                .recordStats()
+                .build();
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "spot-detail");
+    }
+
+    /**
+     * Returns the cached entry, serializing what {@code loader} returns on a miss. The loader
+     * is passed in because the services that load spots are the ones that evict them, and
+     * must not read from a replica.
+     */
+    public Entry get(Long spotId, Function<Long, ParkingSpotResponse> loader) {
+        return cache.get(spotId, id -> serialize(loader.apply(id)));
+    }
+
+    @Override
+    public void invalidate(InvalidationKind kind, String key) {
+        if (kind == InvalidationKind.SPOT) {
+            cache.invalidate(Long.valueOf(key));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Entry serialize(ParkingSpotResponse response) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return new Entry(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"", json.length >= gzipMinBytes);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class Entry {
+
+        private final byte[] json;
+
+        private final String etag;
+
+        private final boolean compressible;
+
+        private volatile byte[] gzip;
+
+        Entry(byte[] json, String etag, boolean compressible) {
+            this.json = json;
+            this.etag = etag;
+            this.compressible = compressible;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * The ETag of the gzip body. It differs from {@link #getEtag()}, because a strong
+         * validator must not match two representations with different bytes.
+         */
+        public String getGzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+
+        /**
+         * The gzip-compressed body, or null if the response is too small to be worth it.
+         * Two racing first callers may both compress; either result is the same.
+         */
+        public byte[] getGzip() {
+            if (!compressible) {
+                return null;
+            }
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                compressed = compress(json);
+                gzip = compressed;
+            }
+            return compressed;
+        }
+
+        private static byte[] compress(byte[] bytes) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 3);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.parkease.service;
+
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.config.ApiMetrics;
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.entity.ParkingSpot;
+import com.parkease.repository.ParkingSpotJdbcRepository;
+import com.parkease.repository.ParkingSpotRepository;
+import com.parkease.storage.ImageKeys;
+import com.parkease.storage.ImageStorage;
+import com.parkease.storage.ThumbnailGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Photo uploads for parking spots. The multipart body is streamed once through a SHA-256
+ * digest into a temporary file and from there to the storage backend, so heap use does not
+ * depend on the file size. No transaction is open while bytes are moving; the spot row is
+ * only updated once the image is stored, and again when its thumbnails are ready.
+ *
+ * Thumbnail jobs that are dropped, fail, or never finish (say the node stops) are queued
+ * again by a sweep on every node: a failure is retried after {@code retry.delay-ms}, doubling
+ * each time, up to {@code retry.max-attempts}; a job still unfinished after
+ * {@code retry.lease-ms} is assumed lost.
+ */
+@Service
+public class SpotImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(SpotImageService.class);
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private ParkingSpotJdbcRepository parkingSpotJdbcRepository;
+
+    @Autowired
+    private ParkingSpotService parkingSpotService;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApiMetrics apiMetrics;
+
+    @Value("${storage.thumbnails.retry.delay-ms:60000}")
+    private long retryDelayMillis;
+
+    @Value("${storage.thumbnails.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${storage.thumbnails.retry.lease-ms:600000}")
+    private long leaseMillis;
+
+    @Value("${storage.thumbnails.retry.sweep-interval-ms:60000}")
+    private long sweepIntervalMillis;
+
+    @Value("${storage.thumbnails.retry.sweep-batch-size:20}")
+    private int sweepBatchSize;
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    void startSweeper() {
+        if (sweepIntervalMillis <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public ParkingSpotResponse uploadImage(Long spotId, MultipartFile file, Long hostId) throws IOException {
+        ParkingSpot spot = parkingSpotRepository.findById(spotId)
+                .orElseThrow(() -> new RuntimeException("Parking spot not found"));
+        if (!spot.getHostId().equals(hostId)) {
+            throw new RuntimeException("You are not authorized to update this spot");
+        }
+        if (file.isEmpty()) {
+            throw new RuntimeException("Image file is empty");
+        }
+
+        String key = store(file);
+
+        ParkingSpotResponse response = transactionTemplate.execute(status -> {
+            ParkingSpot current = parkingSpotRepository.findById(spotId)
+                    .orElseThrow(() -> new RuntimeException("Parking spot not found"));
+            current.setImageKey(key);
+            current.setImageUrl(imageStorage.getUrl(key));
+            current.setThumbnailsReady(false);
+            parkingSpotJdbcRepository.resetThumbnailRetry(spotId, leaseMillis);
+            cacheInvalidationBus.publish(InvalidationKind.SPOT, spotId);
+            return parkingSpotService.convertToResponse(current);
+        });
+        queueThumbnails(spotId, key);
+        return response;
+    }
+
+    private void queueThumbnails(Long spotId, String key) {
+        boolean queued = thumbnailGenerator.submit(key,
+                () -> markThumbnailsReady(spotId, key),
+                () -> thumbnailsFailed(spotId, key));
+        if (!queued) {
+            // Not the image's fault, so no attempt is counted
+            parkingSpotJdbcRepository.deferThumbnails(spotId, key, retryDelayMillis);
+        }
+    }
+
+    private void thumbnailsFailed(Long spotId, String key) {
+        Integer attempts = parkingSpotJdbcRepository.recordThumbnailFailure(spotId, key, retryDelayMillis, maxAttempts);
+        if (attempts != null && attempts >= maxAttempts) {
+            log.warn("Giving up on thumbnails for spot {} ({}) after {} attempts", spotId, key, attempts);
+        }
+    }
+
+    void sweep() {
+        try {
+            List<Map.Entry<Long, String>> due = parkingSpotJdbcRepository.claimThumbnailRetries(sweepBatchSize, leaseMillis);
+            for (Map.Entry<Long, String> job : due) {
+                queueThumbnails(job.getKey(), job.getValue());
+            }
+        } catch (RuntimeException e) {
+            // A failed sweep must not cancel the schedule; the jobs are still due next time
+            log.warn("Thumbnail sweep failed", e);
+        }
+    }
+
+    private String store(MultipartFile file) throws IOException {
+        Path temp = Files.createTempFile("spot-image-", ".upload");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String extension;
+            try (InputStream in = new BufferedInputStream(new DigestInputStream(file.getInputStream(), digest));
+                 OutputStream out = Files.newOutputStream(temp)) {
+                extension = detectExtension(in);
+                StreamUtils.copy(in, out);
+            }
+            String key = ImageKeys.original(HexFormat.of().formatHex(digest.digest()), extension);
+            String contentType = extension.equals("png") ? "image/png" : "image/jpeg";
+            apiMetrics.time("parkease.images.store", "spot_image", () -> {
+                try {
+                    imageStorage.put(key, temp, contentType);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not store image", e);
+                }
+                return key;
+            });
+            return key;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Identifies the format from the magic bytes rather than the client's Content-Type;
+     * only formats the thumbnailer can decode are accepted.
+     */
+    private static String detectExtension(InputStream in) throws IOException {
+        in.mark(8);
+        byte[] header = in.readNBytes(8);
+        in.reset();
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (header.length == 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        throw new RuntimeException("Only JPEG and PNG images are supported");
+    }
+
+    private void markThumbnailsReady(Long spotId, String key) {
+        transactionTemplate.executeWithoutResult(status -> parkingSpotRepository.findById(spotId)
+                // A newer upload may have replaced the image in the meantime
+                .filter(spot -> key.equals(spot.getImageKey()))
+                .ifPresent(spot -> {
+                    spot.setThumbnailsReady(true);
+                    cacheInvalidationBus.publish(InvalidationKind.SPOT, spotId);
+                }));
+    }
+}
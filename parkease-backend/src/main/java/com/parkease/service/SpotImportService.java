@@ -0,0 +1,283 @@
+package com.parkease.service;
+
+import com.parkease.cache.CacheInvalidationBus;
+import com.parkease.cache.InvalidationKind;
+import com.parkease.dto.ParkingSpotRequest;
+import com.parkease.dto.SpotImportError;
+import com.parkease.dto.SpotImportResponse;
+import com.parkease.entity.ParkingSpot;
+import com.parkease.enums.SpotType;
+import com.parkease.repository.ParkingSpotJdbcRepository;
+import com.parkease.repository.UserRepository;
+import com.parkease.util.CsvReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of parking spots from CSV. Rows are parsed and validated as they are read
+ * from the request body and written in JDBC batches, one transaction per batch, so memory
+ * use does not grow with the size of the file.
+ *
+ * A batch the database rejects is written again row by row, so one bad row is reported in
+ * {@code errors} with its line instead of failing the rows around it.
+ */
+@Service
+public class SpotImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private ParkingSpotJdbcRepository parkingSpotJdbcRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${spots.import.batch-size:500}")
+    private int batchSize;
+
+    public SpotImportResponse importCsv(InputStream body, Long hostId) throws IOException {
+        if (!userRepository.existsById(hostId)) {
+            throw new RuntimeException("Host not found");
+        }
+
+        Progress progress = new Progress();
+        List<ParkingSpot> batch = new ArrayList<>(batchSize);
+        List<Long> lines = new ArrayList<>(batchSize);
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new RuntimeException("CSV file is empty");
+            }
+            Map<String, Integer> columns = indexColumns(header);
+
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    ParkingSpotRequest request = toRequest(record, columns);
+                    Set<ConstraintViolation<ParkingSpotRequest>> violations = validator.validate(request);
+                    if (!violations.isEmpty()) {
+                        throw new IllegalArgumentException(violations.stream()
+                                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining("; ")));
+                    }
+                    batch.add(toSpot(request, hostId));
+                    lines.add(reader.getRecordLine());
+                } catch (IllegalArgumentException ex) {
+                    progress.fail(reader.getRecordLine(), ex.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(batch, lines, progress);
+                }
+            }
+        }
+        flush(batch, lines, progress);
+
+        return new SpotImportResponse(progress.imported, progress.failed, progress.errors,
+                progress.failed > progress.errors.size());
+    }
+
+    private void flush(List<ParkingSpot> batch, List<Long> lines, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+            progress.imported += batch.size();
+        } catch (DataIntegrityViolationException batchEx) {
+            // Rows the validation can't see, e.g. a constraint added to the table later
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    insert(List.of(batch.get(i)));
+                    progress.imported++;
+                } catch (DataIntegrityViolationException ex) {
+                    progress.fail(lines.get(i), ex.getMostSpecificCause().getMessage());
+                } catch (DataAccessException ex) {
+                    throw stopped(lines.get(i), progress, ex);
+                }
+            }
+        } catch (DataAccessException ex) {
+            throw stopped(lines.get(0), progress, ex);
+        }
+        batch.clear();
+        lines.clear();
+    }
+
+    /**
+     * The earlier batches stay committed, so the error says how far the import got.
+     */
+    private RuntimeException stopped(long line, Progress progress, DataAccessException cause) {
+        return new RuntimeException("Import stopped at line " + line + " after " + progress.imported
+                + " spots were imported: " + cause.getMostSpecificCause().getMessage(), cause);
+    }
+
+    private void insert(List<ParkingSpot> batch) {
+        int size = batch.size();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = parkingSpotJdbcRepository.allocateIds(size);
+            for (int i = 0; i < size; i++) {
+                batch.get(i).setId(ids.get(i));
+            }
+            parkingSpotJdbcRepository.batchInsert(batch);
+            cacheInvalidationBus.publishAll(InvalidationKind.SPOT, ids);
+            batch.stream()
+                    .map(spot -> SearchResultCache.cityKey(spot.getCity()))
+                    .distinct()
+                    .forEach(city -> cacheInvalidationBus.publish(InvalidationKind.CITY, city));
+        });
+    }
+
+    private Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeColumn(header.get(i)), i);
+        }
+        return columns;
+    }
+
+    private String normalizeColumn(String name) {
+        return name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private ParkingSpotRequest toRequest(List<String> record, Map<String, Integer> columns) {
+        ParkingSpotRequest request = new ParkingSpotRequest();
+        request.setTitle(text(record, columns, "title"));
+        request.setDescription(text(record, columns, "description"));
+        request.setAddress(text(record, columns, "address"));
+        request.setCity(text(record, columns, "city"));
+        request.setState(text(record, columns, "state"));
+        request.setZipCode(text(record, columns, "zipcode"));
+        request.setLatitude(parseDouble(text(record, columns, "latitude"), "latitude"));
+        request.setLongitude(parseDouble(text(record, columns, "longitude"), "longitude"));
+        request.setPricePerHour(parseDecimal(text(record, columns, "priceperhour"), "pricePerHour"));
+        request.setPricePerDay(parseDecimal(text(record, columns, "priceperday"), "pricePerDay"));
+        request.setImageUrl(text(record, columns, "imageurl"));
+
+        String spotType = text(record, columns, "spottype");
+        if (spotType != null) {
+            try {
+                request.setSpotType(SpotType.valueOf(spotType.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("spotType: unknown value '" + spotType + "'");
+            }
+        }
+
+        String isAvailable = text(record, columns, "isavailable");
+        if (isAvailable != null) {
+            request.setIsAvailable(parseBoolean(isAvailable, "isAvailable"));
+        }
+        return request;
+    }
+
+    private ParkingSpot toSpot(ParkingSpotRequest request, Long hostId) {
+        ParkingSpot spot = new ParkingSpot();
+        spot.setHostId(hostId);
+        spot.setTitle(request.getTitle());
+        spot.setDescription(request.getDescription());
+        spot.setAddress(request.getAddress());
+        spot.setCity(request.getCity());
+        spot.setState(request.getState());
+        spot.setZipCode(request.getZipCode());
+        spot.setLatitude(request.getLatitude());
+        spot.setLongitude(request.getLongitude());
+        spot.setPricePerHour(request.getPricePerHour());
+        spot.setPricePerDay(request.getPricePerDay());
+        spot.setImageUrl(request.getImageUrl());
+        spot.setSpotType(request.getSpotType());
+        spot.setIsAvailable(request.getIsAvailable() != null ? request.getIsAvailable() : true);
+        spot.setCreatedAt(LocalDateTime.now());
+        return spot;
+    }
+
+    private String text(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Double parseDouble(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(field + ": not a number '" + value + "'");
+        }
+    }
+
+    private Boolean parseBoolean(String value, String field) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1":
+                return true;
+            case "false", "no", "n", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException(field + ": expected true or false, got '" + value + "'");
+        }
+    }
+
+    private BigDecimal parseDecimal(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(field + ": not a number '" + value + "'");
+        }
+    }
+
+    private static final class Progress {
+
+        private long imported;
+
+        private long failed;
+
+        private final List<SpotImportError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new SpotImportError(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.parkease.service;
+
+import com.parkease.repository.ParkingSpotJdbcRepository.SpotCandidate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Scores search candidates for {@code sort=best}: a weighted sum of rating, price and
+ * distance, each mapped into [0, 1] on a fixed scale so a candidate can be scored on its own
+ * while the rows stream in. Ratings are pulled towards {@code rating-prior} by
+ * {@code rating-prior-reviews} virtual reviews, so one five-star review doesn't top the list.
+ * The weights are {@code spots.ranking.weights.*}; without a reference point the distance
+ * weight is left out.
+ */
+@Component
+public class SpotRanker {
+
+    private static final double MAX_RATING = 5.0;
+
+    /** Worst first; on equal scores the higher id counts as worse, for a stable order */
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble((Scored scored) -> scored.score)
+            .thenComparing(Comparator.comparingLong((Scored scored) -> scored.id).reversed());
+
+    private final double ratingWeight;
+
+    private final double priceWeight;
+
+    private final double distanceWeight;
+
+    private final double ratingPrior;
+
+    private final double ratingPriorReviews;
+
+    private final double priceReference;
+
+    private final double distanceReferenceKm;
+
+    public SpotRanker(@Value("${spots.ranking.weights.rating:0.5}") double ratingWeight,
+                      @Value("${spots.ranking.weights.price:0.3}") double priceWeight,
+                      @Value("${spots.ranking.weights.distance:0.2}") double distanceWeight,
+                      @Value("${spots.ranking.rating-prior:3.0}") double ratingPrior,
+                      @Value("${spots.ranking.rating-prior-reviews:3}") double ratingPriorReviews,
+                      @Value("${spots.ranking.price-reference:10}") double priceReference,
+                      @Value("${spots.ranking.distance-reference-km:2}") double distanceReferenceKm) {
+        if (ratingWeight < 0 || priceWeight < 0 || distanceWeight < 0) {
+            throw new IllegalArgumentException("spots.ranking.weights must not be negative");
+        }
+        this.ratingWeight = ratingWeight;
+        this.priceWeight = priceWeight;
+        this.distanceWeight = distanceWeight;
+        this.ratingPrior = ratingPrior;
+        this.ratingPriorReviews = ratingPriorReviews;
+        this.priceReference = priceReference;
+        this.distanceReferenceKm = distanceReferenceKm;
+    }
+
+    /**
+     * A selector keeping the {@code k} best candidates seen, measuring distance from the
+     * given point if both coordinates are set.
+     */
+    public TopK topK(int k, Double latitude, Double longitude) {
+        return new TopK(k, latitude, longitude);
+    }
+
+    double score(SpotCandidate candidate, Double latitude, Double longitude) {
+        double reviews = candidate.getReviewCount();
+        double rating = (candidate.getAverageRating() * reviews + ratingPrior * ratingPriorReviews)
+                / (reviews + ratingPriorReviews);
+        double price = candidate.getPricePerHour().doubleValue();
+        double score = ratingWeight * rating / MAX_RATING
+                + priceWeight * priceReference / (priceReference + Math.max(0, price));
+        if (latitude != null && longitude != null) {
+            // A spot without coordinates can't be shown as close
+            if (candidate.getLatitude() != null && candidate.getLongitude() != null) {
+                double distanceKm = SpotClusterIndex.distanceKm(latitude, longitude,
+                        candidate.getLatitude(), candidate.getLongitude());
+                score += distanceWeight * distanceReferenceKm / (distanceReferenceKm + distanceKm);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Bounded min-heap of the best candidates: each offer costs O(log k) and at most k
+     * candidates are held, however many the search matches.
+     */
+    public final class TopK implements Consumer<SpotCandidate> {
+
+        private final int k;
+
+        private final Double latitude;
+
+        private final Double longitude;
+
+        private final PriorityQueue<Scored> heap;
+
+        private TopK(int k, Double latitude, Double longitude) {
+            this.k = k;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.heap = new PriorityQueue<>(k + 1, WORST_FIRST);
+        }
+
+        @Override
+        public void accept(SpotCandidate candidate) {
+            Scored scored = new Scored(candidate.getId(), score(candidate, latitude, longitude));
+            if (heap.size() < k) {
+                heap.add(scored);
+            } else if (WORST_FIRST.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        /**
+         * Ids of the kept candidates, best first.
+         */
+        public List<Long> ids() {
+            List<Scored> best = new ArrayList<>(heap);
+            best.sort(WORST_FIRST.reversed());
+            return best.stream().map(scored -> scored.id).toList();
+        }
+    }
+
+    private static final class Scored {
+
+        private final long id;
+
+        private final double score;
+
+        Scored(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.parkease.storage;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Stores images in a Google Cloud Storage bucket. Uploads are resumable and sent in chunks
+ * straight from the file, and objects are marked immutable so the bucket's CDN and browsers
+ * can cache them indefinitely.
+ */
+public class GcsImageStorage implements ImageStorage {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * HTTP 412: the object already exists, which for content-addressed keys means the upload
+     * was a duplicate.
+     */
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final Storage storage;
+
+    private final String bucket;
+
+    public GcsImageStorage(Storage storage, String bucket) {
+        this.storage = storage;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        BlobInfo blob = BlobInfo.newBuilder(blobId(key))
+                .setContentType(contentType)
+                .setCacheControl(CACHE_CONTROL)
+                .build();
+        try {
+            storage.createFrom(blob, file, Storage.BlobWriteOption.doesNotExist());
+        } catch (StorageException e) {
+            if (e.getCode() != PRECONDITION_FAILED) {
+                throw new IOException("Upload of " + key + " to gs://" + bucket + " failed", e);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            return storage.get(blobId(key), Storage.BlobGetOption.fields(Storage.BlobField.NAME)) != null;
+        } catch (StorageException e) {
+            throw new IOException("Lookup of " + key + " in gs://" + bucket + " failed", e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return Channels.newInputStream(storage.reader(blobId(key)));
+        } catch (StorageException e) {
+            throw new IOException("Download of " + key + " from gs://" + bucket + " failed", e);
+        }
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return "https://storage.googleapis.com/" + bucket + "/" + key;
+    }
+
+    private BlobId blobId(String key) {
+        if (!ImageKeys.isValid(key)) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        return BlobId.of(bucket, key);
+    }
+}
@@ -0,0 +1,32 @@
+package com.parkease.storage;
+
+import java.util.regex.Pattern;
+
+/**
+ * Naming of stored images: originals are {@code <sha256>.<ext>}, their thumbnails
+ * {@code <sha256>_<width>.jpg}. Both are derived from the content alone, so they can be
+ * cached forever and uploading the same photo twice stores it once.
+ */
+public final class ImageKeys {
+
+    private static final Pattern VALID_KEY = Pattern.compile("[0-9a-f]{64}(_[0-9]{1,4})?\\.(jpg|png)");
+
+    private ImageKeys() {
+    }
+
+    public static String original(String sha256Hex, String extension) {
+        return sha256Hex + "." + extension;
+    }
+
+    public static String thumbnail(String originalKey, int width) {
+        return originalKey.substring(0, originalKey.indexOf('.')) + "_" + width + ".jpg";
+    }
+
+    /**
+     * True if {@code key} has the shape of a key produced here, so it is safe to use as a
+     * file name or object name.
+     */
+    public static boolean isValid(String key) {
+        return key != null && VALID_KEY.matcher(key).matches();
+    }
+}
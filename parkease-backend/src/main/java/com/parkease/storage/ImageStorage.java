@@ -0,0 +1,27 @@
+package com.parkease.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Blob store for spot images. Keys are content-addressed (see {@link ImageKeys}), so an
+ * object never changes once written and storing an existing key again is a no-op.
+ */
+public interface ImageStorage {
+
+    /**
+     * Stores the contents of {@code file} under {@code key}. The file is streamed, never read
+     * into memory as a whole, and may be moved away by the implementation.
+     */
+    void put(String key, Path file, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * URL a client can load the object from.
+     */
+    String getUrl(String key);
+}
@@ -0,0 +1,50 @@
+package com.parkease.storage;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.storage.StorageOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Picks the image storage backend from {@code storage.backend}: {@code local} (the default)
+ * or {@code gcs}, which uses the bucket configured under {@code google.cloud.storage}.
+ * Decided at runtime rather than with a condition, so an AOT-processed build can still be
+ * pointed at either backend.
+ */
+@Configuration
+public class ImageStorageConfig {
+
+    @Bean
+    public ImageStorage imageStorage(
+            @Value("${storage.backend:local}") String backend,
+            @Value("${storage.local.directory:data/images}") String directory,
+            @Value("${storage.local.public-base-url:/api/images/}") String publicBaseUrl,
+            @Value("${google.cloud.storage.bucket-name:}") String bucket,
+            @Value("${google.cloud.storage.credentials-path:}") String credentialsPath) throws IOException {
+        switch (backend) {
+            case "local":
+                return new LocalImageStorage(Path.of(directory), publicBaseUrl);
+            case "gcs": {
+                if (bucket.isBlank()) {
+                    throw new IllegalStateException("storage.backend=gcs needs google.cloud.storage.bucket-name");
+                }
+                StorageOptions.Builder options = StorageOptions.newBuilder();
+                if (!credentialsPath.isBlank()) {
+                    try (InputStream credentials = Files.newInputStream(Path.of(credentialsPath))) {
+                        options.setCredentials(GoogleCredentials.fromStream(credentials));
+                    }
+                }
+                // Otherwise application default credentials, i.e. the Cloud Run service account
+                return new GcsImageStorage(options.build().getService(), bucket);
+            }
+            default:
+                throw new IllegalStateException("Unknown storage.backend '" + backend + "', expected local or gcs");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.parkease.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores images as files in one directory, for local development, tests and self-hosted
+ * deployments. Files are staged next to their final name and renamed into place, so a
+ * reader never sees a partially written image.
+ */
+public class LocalImageStorage implements ImageStorage {
+
+    private final Path directory;
+
+    private final String publicBaseUrl;
+
+    public LocalImageStorage(Path directory, String publicBaseUrl) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        // A plain move when the upload lives on the same file system, a streamed copy otherwise
+        Path staging = Files.createTempFile(directory, key, ".part");
+        try {
+            Files.move(file, staging, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return publicBaseUrl + key;
+    }
+
+    /**
+     * The file backing {@code key}; only well-formed keys are accepted, so the result is
+     * always inside the storage directory.
+     */
+    public Path resolve(String key) {
+        if (!ImageKeys.isValid(key)) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        return directory.resolve(key);
+    }
+}
@@ -0,0 +1,228 @@
+package com.parkease.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders JPEG thumbnails of stored images on a small bounded pool, so decoding large
+ * photos never runs on request threads and never more than a few at a time. When the
+ * queue is full the job is dropped and counted; the spot keeps showing its original image
+ * and the caller decides when to try again.
+ *
+ * Sources are decoded with subsampling to about twice the largest thumbnail width, which
+ * keeps the decoded bitmap small no matter how large the upload was.
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    private final ImageStorage storage;
+
+    private final int[] widths;
+
+    private final long maxSourcePixels;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer successTimer;
+
+    private final Timer errorTimer;
+
+    private final Counter rejectedCounter;
+
+    public ThumbnailGenerator(ImageStorage storage,
+                              @Value("${storage.thumbnails.widths:160,480,1024}") int[] widths,
+                              @Value("${storage.thumbnails.pool-size:2}") int poolSize,
+                              @Value("${storage.thumbnails.queue-capacity:100}") int queueCapacity,
+                              @Value("${storage.thumbnails.max-source-pixels:100000000}") long maxSourcePixels,
+                              MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.maxSourcePixels = maxSourcePixels;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThumbnailThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("storage.thumbnails.queue.depth", executor, e -> e.getQueue().size())
+                .description("Thumbnail jobs waiting for a worker")
+                .register(meterRegistry);
+        this.successTimer = Timer.builder("storage.thumbnails.duration")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.errorTimer = Timer.builder("storage.thumbnails.duration")
+                .tag("outcome", "error")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("storage.thumbnails.rejected")
+                .description("Thumbnail jobs dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues thumbnails for the original stored under {@code key}; {@code onComplete} runs on
+     * the worker once every size is stored, {@code onFailure} if rendering or storing failed.
+     * Returns false if the job was dropped.
+     */
+    public boolean submit(String key, Runnable onComplete, Runnable onFailure) {
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                try {
+                    render(key);
+                } catch (Exception e) {
+                    errorTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    log.warn("Could not generate thumbnails for {}", key, e);
+                    onFailure.run();
+                    return;
+                }
+                successTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                onComplete.run();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Thumbnail queue is full, dropped the job for {}", key);
+            return false;
+        }
+    }
+
+    /**
+     * Thumbnail URLs by width for the image stored under {@code key}, or an empty map while
+     * they have not been generated.
+     */
+    public Map<Integer, String> thumbnailUrls(String key, Boolean ready) {
+        if (key == null || !Boolean.TRUE.equals(ready)) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int width : widths) {
+            urls.put(width, storage.getUrl(ImageKeys.thumbnail(key, width)));
+        }
+        return urls;
+    }
+
+    void render(String key) throws IOException {
+        BufferedImage source = null;
+        for (int width : widths) {
+            String thumbnailKey = ImageKeys.thumbnail(key, width);
+            // Thumbnails of a re-uploaded photo are already there
+            if (storage.exists(thumbnailKey)) {
+                continue;
+            }
+            if (source == null) {
+                source = decode(key);
+            }
+            Path file = Files.createTempFile("thumbnail-", ".jpg");
+            try {
+                ImageIO.write(scale(source, width), "jpg", file.toFile());
+                storage.put(thumbnailKey, file, "image/jpeg");
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private BufferedImage decode(String key) throws IOException {
+        try (InputStream in = storage.open(key);
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + key);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image " + key + " is too large to thumbnail: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (widths[widths.length - 1] * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Downscales by halving first and finishing with one bilinear step, which avoids the
+     * aliasing of a single large bilinear reduction. Never upscales.
+     */
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int width = Math.min(targetWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG has no alpha, transparent PNG areas become white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class ThumbnailThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update).
+-- Existing databases are baselined at this version and skip this script.
+
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email       VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    phone       VARCHAR(255),
+    created_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE parking_spots (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    host_id         BIGINT NOT NULL REFERENCES users (id),
+    title           VARCHAR(255) NOT NULL,
+    description     TEXT,
+    address         VARCHAR(255) NOT NULL,
+    city            VARCHAR(255) NOT NULL,
+    state           VARCHAR(255),
+    zip_code        VARCHAR(255),
+    latitude        DOUBLE PRECISION,
+    longitude       DOUBLE PRECISION,
+    price_per_hour  NUMERIC(10, 2) NOT NULL,
+    price_per_day   NUMERIC(10, 2) NOT NULL,
+    image_url       VARCHAR(255),
+    spot_type       VARCHAR(255) NOT NULL CHECK (spot_type IN ('GARAGE', 'DRIVEWAY', 'STREET', 'LOT')),
+    is_available    BOOLEAN NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE reservations (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    spot_id      BIGINT NOT NULL REFERENCES parking_spots (id),
+    renter_id    BIGINT NOT NULL REFERENCES users (id),
+    start_time   TIMESTAMP(6) NOT NULL,
+    end_time     TIMESTAMP(6) NOT NULL,
+    total_price  NUMERIC(10, 2) NOT NULL,
+    status       VARCHAR(255) NOT NULL CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'COMPLETED')),
+    created_at   TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE reviews (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    spot_id     BIGINT NOT NULL REFERENCES parking_spots (id),
+    renter_id   BIGINT NOT NULL REFERENCES users (id),
+    rating      INTEGER NOT NULL,
+    comment     TEXT,
+    created_at  TIMESTAMP(6) NOT NULL
+);
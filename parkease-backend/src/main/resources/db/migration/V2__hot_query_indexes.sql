@@ -0,0 +1,26 @@
+-- Indexes for the queries in ParkingSpotRepository, ReservationRepository and ReviewRepository.
+-- IF NOT EXISTS so the script is safe on databases that were baselined with hand-made indexes.
+
+-- ParkingSpotRepository.searchSpots: LOWER(CAST(city AS TEXT)) = ?, spot_type = ?, price range,
+-- always is_available = true. Only available spots are ever searched, so the index is partial.
+CREATE INDEX IF NOT EXISTS idx_parking_spots_search
+    ON parking_spots (lower(city::text), spot_type, price_per_hour)
+    WHERE is_available = true;
+
+-- ParkingSpotRepository.findByHostId and the host join in ReservationRepository.findByHostId
+CREATE INDEX IF NOT EXISTS idx_parking_spots_host
+    ON parking_spots (host_id);
+
+-- ReservationRepository.findConflictingReservations (spot_id, status, time window),
+-- findBySpotId and the spot side of findByHostId
+CREATE INDEX IF NOT EXISTS idx_reservations_spot_status_time
+    ON reservations (spot_id, status, start_time, end_time);
+
+-- ReservationRepository.findByRenterId and findBySpotIdAndRenterIdAndStatus
+CREATE INDEX IF NOT EXISTS idx_reservations_renter
+    ON reservations (renter_id, spot_id, status);
+
+-- ReviewRepository.findBySpotId, findBySpotIdAndRenterId, and the AVG/COUNT rating
+-- lookups, which become index-only scans thanks to the included rating column
+CREATE INDEX IF NOT EXISTS idx_reviews_spot
+    ON reviews (spot_id, renter_id) INCLUDE (rating);
@@ -0,0 +1,5 @@
+-- Uploaded spot photos: the content-addressed storage key of the original,
+-- and whether its thumbnails have been generated yet.
+
+ALTER TABLE parking_spots ADD COLUMN image_key VARCHAR(80);
+ALTER TABLE parking_spots ADD COLUMN thumbnails_ready BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,35 @@
+-- Append-only journal of reservation status transitions, written in batches after the
+-- transition commits (ReservationJournal). from_status is NULL for the creating event.
+-- spot_id and host_id are copied in so the journal can be read without joins.
+
+CREATE TABLE reservation_events (
+    id              BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    event_id        UUID NOT NULL,
+    reservation_id  BIGINT NOT NULL,
+    spot_id         BIGINT NOT NULL,
+    host_id         BIGINT NOT NULL,
+    from_status     VARCHAR(255) CHECK (from_status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'COMPLETED')),
+    to_status       VARCHAR(255) NOT NULL CHECK (to_status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'COMPLETED')),
+    actor_id        BIGINT NOT NULL,
+    occurred_at     TIMESTAMP(6) NOT NULL,
+    recorded_at     TIMESTAMP(6) NOT NULL DEFAULT now()
+);
+
+-- A batch retried after a lost commit acknowledgement inserts nothing twice
+CREATE UNIQUE INDEX idx_reservation_events_event ON reservation_events (event_id);
+
+-- ReservationEventJdbcRepository.findByReservationId
+CREATE INDEX idx_reservation_events_reservation ON reservation_events (reservation_id, id);
+
+-- ReservationEventJdbcRepository.findByHostIdAfter, the replay feed
+CREATE INDEX idx_reservation_events_host ON reservation_events (host_id, id);
+
+CREATE FUNCTION reservation_events_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'reservation_events is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER reservation_events_append_only
+    BEFORE UPDATE OR DELETE ON reservation_events
+    FOR EACH STATEMENT EXECUTE FUNCTION reservation_events_append_only();
@@ -0,0 +1,11 @@
+-- Thumbnail jobs that were dropped, failed or never finished are re-queued by a sweep
+-- (SpotImageService). thumbnail_retry_at is when the sweep may queue the job again;
+-- NULL once there is nothing left to try.
+
+ALTER TABLE parking_spots ADD COLUMN thumbnail_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE parking_spots ADD COLUMN thumbnail_retry_at TIMESTAMP(6);
+
+-- ParkingSpotJdbcRepository.claimThumbnailRetries
+CREATE INDEX idx_parking_spots_thumbnail_retry
+    ON parking_spots (thumbnail_retry_at)
+    WHERE thumbnails_ready = false AND thumbnail_retry_at IS NOT NULL;
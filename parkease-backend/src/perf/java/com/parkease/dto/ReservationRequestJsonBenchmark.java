@@ -0,0 +1,46 @@
+package com.parkease.dto;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of a booking request body with the same Jackson setup Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationRequestJsonBenchmark {
+    
+    private ObjectReader reader;
+    
+    private byte[] body;
+    
+    @Setup
+    public void setUp() {
+        reader = Jackson2ObjectMapperBuilder.json().build().readerFor(ReservationRequest.class);
+        body = "{\"spotId\":1842,\"startTime\":\"2026-11-02T18:00:00\",\"endTime\":\"2026-11-02T21:30:00\"}"
+                .getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public ReservationRequest deserialize() throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,119 @@
+package com.parkease.perf;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Fills the schema with a realistic data set using set-based SQL: users, spots spread
+ * over several cities, years of reservation history and reviews.
+ * Every seeded user can log in as {@code user<N>@perf.parkease} with {@link #PASSWORD}.
+ */
+public class DataSeeder {
+
+    public static final String PASSWORD = "perf-password";
+
+    public static final String[] CITIES = {
+            "San Francisco", "Los Angeles", "Seattle", "New York", "Boston", "Chicago", "Austin", "Denver"
+    };
+
+    private static final String CITY_VALUES = "(VALUES " +
+            "(0, 'San Francisco', 'CA', 37.7749, -122.4194), " +
+            "(1, 'Los Angeles', 'CA', 34.0522, -118.2437), " +
+            "(2, 'Seattle', 'WA', 47.6062, -122.3321), " +
+            "(3, 'New York', 'NY', 40.7128, -74.0060), " +
+            "(4, 'Boston', 'MA', 42.3601, -71.0589), " +
+            "(5, 'Chicago', 'IL', 41.8781, -87.6298), " +
+            "(6, 'Austin', 'TX', 30.2672, -97.7431), " +
+            "(7, 'Denver', 'CO', 39.7392, -104.9903)) AS c(idx, city, state, lat, lng)";
+
+    private int users = 2_000;
+
+    private int spots = 5_000;
+
+    private int reservationsPerSpot = 100;
+
+    private int reviewsPerSpot = 10;
+
+    private int historyYears = 3;
+
+    public DataSeeder users(int users) {
+        this.users = users;
+        return this;
+    }
+
+    public DataSeeder spots(int spots) {
+        this.spots = spots;
+        return this;
+    }
+
+    public DataSeeder reservationsPerSpot(int reservationsPerSpot) {
+        this.reservationsPerSpot = reservationsPerSpot;
+        return this;
+    }
+
+    public DataSeeder reviewsPerSpot(int reviewsPerSpot) {
+        this.reviewsPerSpot = reviewsPerSpot;
+        return this;
+    }
+
+    public DataSeeder historyYears(int historyYears) {
+        this.historyYears = historyYears;
+        return this;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getSpots() {
+        return spots;
+    }
+
+    public void seed(JdbcTemplate jdbcTemplate) {
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+
+        jdbcTemplate.update("INSERT INTO users (email, password, name, phone, created_at) " +
+                "SELECT 'user' || g || '@perf.parkease', ?, 'Perf User ' || g, '555-' || lpad(g::text, 7, '0'), " +
+                "       now() - interval '1 hour' * g " +
+                "FROM generate_series(1, ?) g", passwordHash, users);
+
+        jdbcTemplate.update("INSERT INTO parking_spots (host_id, title, description, address, city, state, zip_code, " +
+                "       latitude, longitude, price_per_hour, price_per_day, image_url, spot_type, is_available, created_at) " +
+                "SELECT u.min_id + (g % u.n), " +
+                "       (ARRAY['Covered', 'Secure', 'Sunny', 'Quiet', 'Downtown'])[1 + g % 5] || ' spot #' || g, " +
+                "       repeat('Well lit parking with easy access, close to transit and shops. ', 1 + g % 6), " +
+                "       (100 + g % 9000) || ' Main St', c.city, c.state, lpad((g % 99999)::text, 5, '0'), " +
+                "       c.lat + (random() - 0.5) * 0.3, c.lng + (random() - 0.5) * 0.3, " +
+                "       round((2 + random() * 18)::numeric, 2), round((20 + random() * 100)::numeric, 2), " +
+                "       NULL, (ARRAY['GARAGE', 'DRIVEWAY', 'STREET', 'LOT'])[1 + g % 4], g % 10 <> 0, " +
+                "       now() - interval '1 day' * (g % 1000) " +
+                "FROM generate_series(1, ?) g " +
+                "JOIN " + CITY_VALUES + " ON c.idx = g % 8 " +
+                "CROSS JOIN (SELECT min(id) AS min_id, count(*) AS n FROM users) u", spots);
+
+        // History runs from historyYears ago until a month from now, so both past and upcoming bookings exist
+        double spanHours = (historyYears * 365 + 30) * 24.0;
+        jdbcTemplate.update("INSERT INTO reservations (spot_id, renter_id, start_time, end_time, total_price, status, created_at) " +
+                "SELECT s.id, u.min_id + ((s.id * 31 + k) % u.n), t.start_time, " +
+                "       t.start_time + interval '1 hour' * (1 + k % 8), s.price_per_hour * (1 + k % 8), " +
+                "       CASE WHEN t.start_time > now() THEN (ARRAY['PENDING', 'CONFIRMED', 'CONFIRMED'])[1 + k % 3] " +
+                "            ELSE (ARRAY['COMPLETED', 'COMPLETED', 'COMPLETED', 'CANCELLED'])[1 + k % 4] END, " +
+                "       t.start_time - interval '3 days' " +
+                "FROM parking_spots s " +
+                "CROSS JOIN generate_series(1, ?) k " +
+                "CROSS JOIN (SELECT min(id) AS min_id, count(*) AS n FROM users) u " +
+                "CROSS JOIN LATERAL (SELECT date_trunc('hour', now() - interval '1 day' * ? " +
+                "       + interval '1 hour' * (k * ? / ?)) AS start_time) t",
+                reservationsPerSpot, historyYears * 365, spanHours, reservationsPerSpot);
+
+        jdbcTemplate.update("INSERT INTO reviews (spot_id, renter_id, rating, comment, created_at) " +
+                "SELECT s.id, u.min_id + ((s.id * 7 + k) % u.n), 1 + (s.id + k) % 5, " +
+                "       (ARRAY['Easy access.', 'A bit tight but fine.', 'Great host, would park again.'])[1 + k % 3], " +
+                "       now() - interval '1 day' * (k * 30) " +
+                "FROM parking_spots s " +
+                "CROSS JOIN generate_series(1, ?) k " +
+                "CROSS JOIN (SELECT min(id) AS min_id, count(*) AS n FROM users) u", reviewsPerSpot);
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
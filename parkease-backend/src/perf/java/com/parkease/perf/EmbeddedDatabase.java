@@ -0,0 +1,58 @@
+package com.parkease.perf;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+
+/**
+ * A throwaway PostgreSQL server started from bundled binaries, so the performance
+ * harness needs no local database, network access or secrets.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+    
+    private final EmbeddedPostgres postgres;
+    
+    private EmbeddedDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+    
+    public static EmbeddedDatabase start() throws IOException {
+        return start(false);
+    }
+    
+    /**
+     * @param publisher whether the server can publish changes to a logical replication subscriber
+     */
+    public static EmbeddedDatabase start(boolean publisher) throws IOException {
+        EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder()
+                .setServerConfig("shared_buffers", "256MB")
+                .setServerConfig("fsync", "off")
+                .setServerConfig("synchronous_commit", "off")
+                .setServerConfig("max_connections", "200");
+        if (publisher) {
+            builder.setServerConfig("wal_level", "logical");
+        }
+        return new EmbeddedDatabase(builder.start());
+    }
+    
+    public String getJdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+    
+    public int getPort() {
+        return postgres.getPort();
+    }
+    
+    public String getUsername() {
+        return "postgres";
+    }
+    
+    public String getPassword() {
+        return "";
+    }
+    
+    @Override
+    public void close() throws IOException {
+        postgres.close();
+    }
+}
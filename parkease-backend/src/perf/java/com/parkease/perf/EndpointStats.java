@@ -0,0 +1,109 @@
+package com.parkease.perf;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and status counts for one endpoint. Latency is measured from the
+ * request's scheduled start, not from when it was actually sent, so a stalled server
+ * shows up in the percentiles instead of being hidden by coordinated omission.
+ */
+public class EndpointStats {
+    
+    private final String name;
+    
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+    
+    private final LongAdder ok = new LongAdder();
+    
+    private final LongAdder clientErrors = new LongAdder();
+    
+    private final LongAdder serverErrors = new LongAdder();
+    
+    private final LongAdder failures = new LongAdder();
+    
+    private final LongAdder dropped = new LongAdder();
+    
+    private Histogram histogram;
+    
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void record(long scheduledNanos, long completedNanos, int status) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(completedNanos - scheduledNanos),
+                TimeUnit.MINUTES.toMicros(1)));
+        if (status < 400) {
+            ok.increment();
+        } else if (status < 500) {
+            clientErrors.increment();
+        } else {
+            serverErrors.increment();
+        }
+    }
+    
+    public void recordFailure(long scheduledNanos, long completedNanos) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(completedNanos - scheduledNanos),
+                TimeUnit.MINUTES.toMicros(1)));
+        failures.increment();
+    }
+    
+    public void recordDropped() {
+        dropped.increment();
+    }
+    
+    /**
+     * Discards everything recorded so far, used to throw away the warm-up phase.
+     */
+    public void reset() {
+        recorder.getIntervalHistogram();
+        ok.reset();
+        clientErrors.reset();
+        serverErrors.reset();
+        failures.reset();
+        dropped.reset();
+    }
+    
+    public void finish() {
+        histogram = recorder.getIntervalHistogram();
+    }
+    
+    public long getTotal() {
+        return histogram.getTotalCount();
+    }
+    
+    public double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+    
+    public Map<String, Object> toReport(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", histogram.getTotalCount());
+        report.put("throughputPerSecond", round(histogram.getTotalCount() / seconds));
+        report.put("ok", ok.sum());
+        report.put("clientErrors", clientErrors.sum());
+        report.put("serverErrors", serverErrors.sum());
+        report.put("failures", failures.sum());
+        report.put("dropped", dropped.sum());
+        report.put("meanMs", round(histogram.getMean() / 1000.0));
+        report.put("p50Ms", round(percentileMillis(50)));
+        report.put("p90Ms", round(percentileMillis(90)));
+        report.put("p99Ms", round(percentileMillis(99)));
+        report.put("p999Ms", round(percentileMillis(99.9)));
+        report.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+        return report;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,227 @@
+package com.parkease.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are started on a Poisson arrival schedule at a fixed
+ * rate regardless of how fast the server answers, which is how real traffic behaves.
+ *
+ * By default the application is booted against an embedded PostgreSQL and seeded first;
+ * set {@code loadtest.target-url} to drive an already running instance instead, or
+ * {@code loadtest.replica=true} to add a second embedded database as a read replica.
+ * Run with {@code mvn -Ploadtest verify}; all settings are {@code -Dloadtest.*} properties.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "60s"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "20s"));
+        String mix = System.getProperty("loadtest.mix", "search=50,detail=35,booking=10,login=5");
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 2000);
+        String targetUrl = System.getProperty("loadtest.target-url", "");
+        boolean replica = Boolean.getBoolean("loadtest.replica");
+        String report = System.getProperty("loadtest.report", "target/loadtest-report.json");
+        double maxP99Millis = Double.parseDouble(System.getProperty("loadtest.max-p99-ms", "0"));
+
+        DataSeeder seeder = new DataSeeder()
+                .users(Integer.getInteger("loadtest.users", 2_000))
+                .spots(Integer.getInteger("loadtest.spots", 20_000))
+                .reservationsPerSpot(Integer.getInteger("loadtest.reservations-per-spot", 100))
+                .reviewsPerSpot(Integer.getInteger("loadtest.reviews-per-spot", 10))
+                .historyYears(Integer.getInteger("loadtest.history-years", 3));
+
+        SeededApplication application = null;
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        try {
+            String baseUrl;
+            List<Long> spotIds;
+            if (targetUrl.isEmpty()) {
+                System.out.println("Starting embedded PostgreSQL" + (replica ? " with a logical replica" : "")
+                        + " and seeding " + seeder.getSpots() + " spots...");
+                application = SeededApplication.start(seeder, replica, profileArguments());
+                baseUrl = "http://localhost:" + application.getPort();
+                spotIds = application.getBean(JdbcTemplate.class)
+                        .queryForList("SELECT id FROM parking_spots WHERE is_available = true", Long.class);
+            } else {
+                baseUrl = targetUrl.replaceAll("/$", "");
+                spotIds = discoverSpotIds(client, baseUrl);
+            }
+
+            TrafficMix traffic = new TrafficMix(mix, baseUrl, spotIds, List.of(), seeder.getUsers());
+            List<String> tokens = login(client, traffic, Math.min(50, seeder.getUsers()));
+            traffic = new TrafficMix(mix, baseUrl, spotIds, tokens, seeder.getUsers());
+
+            Map<String, EndpointStats> stats = new LinkedHashMap<>();
+            for (String endpoint : traffic.getEndpoints()) {
+                stats.put(endpoint, new EndpointStats(endpoint));
+            }
+
+            System.out.printf("Warming up for %ss at %.0f req/s...%n", warmup.toSeconds(), rate);
+            run(client, traffic, stats, rate, warmup, maxInFlight);
+            stats.values().forEach(EndpointStats::reset);
+
+            System.out.printf("Measuring for %ss at %.0f req/s (mix %s)...%n", duration.toSeconds(), rate, mix);
+            long started = System.nanoTime();
+            run(client, traffic, stats, rate, duration, maxInFlight);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            stats.values().forEach(EndpointStats::finish);
+
+            boolean passed = report(stats, seconds, rate, mix, report, maxP99Millis);
+            if (!passed) {
+                System.exit(1);
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    /**
+     * Issues requests until {@code duration} has elapsed and waits for the stragglers.
+     */
+    static void run(HttpClient client, TrafficMix traffic, Map<String, EndpointStats> stats,
+                    double rate, Duration duration, int maxInFlight) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService completions = Executors.newVirtualThreadPerTaskExecutor();
+        double meanIntervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+
+        while (next < end) {
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            long scheduled = next;
+            // Exponential inter-arrival times give a Poisson arrival process
+            next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos);
+
+            String endpoint = traffic.nextEndpoint();
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (!inFlight.tryAcquire()) {
+                endpointStats.recordDropped();
+                continue;
+            }
+            HttpRequest request = traffic.build(endpoint);
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenCompleteAsync((response, error) -> {
+                        long now = System.nanoTime();
+                        if (error != null) {
+                            endpointStats.recordFailure(scheduled, now);
+                        } else {
+                            endpointStats.record(scheduled, now, response.statusCode());
+                        }
+                        inFlight.release();
+                    }, completions);
+        }
+
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+        completions.shutdown();
+        completions.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private static List<String> login(HttpClient client, TrafficMix traffic, int count) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> tokens = new ArrayList<>();
+        for (int user = 1; user <= count; user++) {
+            HttpResponse<String> response = client.send(traffic.loginRequest(user), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                tokens.add(mapper.readTree(response.body()).get("token").asText());
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IllegalStateException("Could not log in any user@perf.parkease account for booking traffic");
+        }
+        return tokens;
+    }
+
+    private static List<Long> discoverSpotIds(HttpClient client, String baseUrl) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        for (String city : DataSeeder.CITIES) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/spots?city="
+                    + URLEncoder.encode(city, StandardCharsets.UTF_8))).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            for (JsonNode spot : mapper.readTree(response.body())) {
+                ids.add(spot.get("id").asLong());
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No spots found at " + baseUrl + ", seed the target first");
+        }
+        return ids;
+    }
+
+    private static String[] profileArguments() {
+        String profiles = System.getProperty("loadtest.profiles", "");
+        return profiles.isEmpty() ? new String[0] : new String[]{"spring.profiles.active=" + profiles};
+    }
+
+    private static boolean report(Map<String, EndpointStats> stats, double seconds, double rate, String mix,
+                                  String reportFile, double maxP99Millis) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        boolean passed = true;
+
+        System.out.println();
+        System.out.printf("%-10s %10s %10s %9s %9s %9s %9s %9s %8s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "dropped");
+        for (EndpointStats endpoint : stats.values()) {
+            Map<String, Object> row = endpoint.toReport(seconds);
+            endpoints.put(endpoint.getName(), row);
+            long errors = (long) row.get("serverErrors") + (long) row.get("failures");
+            System.out.printf("%-10s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %8d%n",
+                    endpoint.getName(), row.get("requests"), row.get("throughputPerSecond"),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"),
+                    errors, row.get("dropped"));
+            if (maxP99Millis > 0 && endpoint.getTotal() > 0 && endpoint.percentileMillis(99) > maxP99Millis) {
+                System.out.printf("  p99 of %s exceeds the %.0f ms budget%n", endpoint.getName(), maxP99Millis);
+                passed = false;
+            }
+        }
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("targetRate", rate);
+        document.put("mix", mix);
+        document.put("durationSeconds", Math.round(seconds * 100) / 100.0);
+        document.put("endpoints", endpoints);
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, document);
+        System.out.println();
+        System.out.println("Report written to " + file.getPath());
+        return passed;
+    }
+}
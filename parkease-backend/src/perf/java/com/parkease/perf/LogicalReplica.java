@@ -0,0 +1,65 @@
+package com.parkease.perf;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Turns a second {@link EmbeddedDatabase} into a replica of the first through logical
+ * replication, so read/write routing can be exercised locally. The publisher must have been
+ * started with {@code EmbeddedDatabase.start(true)}.
+ */
+public final class LogicalReplica {
+    
+    private static final String TABLES = "users, parking_spots, reservations, reviews";
+    
+    private static final String COUNTS = "SELECT (SELECT count(*) FROM users) || '/' || " +
+            "(SELECT count(*) FROM parking_spots) || '/' || " +
+            "(SELECT count(*) FROM reservations) || '/' || " +
+            "(SELECT count(*) FROM reviews)";
+    
+    private LogicalReplica() {
+    }
+    
+    /**
+     * Creates the schema on the replica and subscribes it to every application table of the
+     * already migrated primary. Initial data is copied by the subscription itself.
+     */
+    public static void subscribe(EmbeddedDatabase primary, EmbeddedDatabase replica) {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+        
+        jdbc(primary).execute("CREATE PUBLICATION parkease_perf FOR TABLE " + TABLES);
+        jdbc(replica).execute("CREATE SUBSCRIPTION parkease_perf CONNECTION 'host=localhost port=" + primary.getPort()
+                + " user=" + primary.getUsername() + " dbname=postgres' PUBLICATION parkease_perf");
+    }
+    
+    /**
+     * Blocks until the replica holds as many rows as the primary in every replicated table,
+     * then refreshes its planner statistics.
+     */
+    public static void awaitCaughtUp(EmbeddedDatabase primary, EmbeddedDatabase replica, Duration timeout)
+            throws InterruptedException {
+        JdbcTemplate primaryJdbc = jdbc(primary);
+        JdbcTemplate replicaJdbc = jdbc(replica);
+        String expected = primaryJdbc.queryForObject(COUNTS, String.class);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!Objects.equals(expected, replicaJdbc.queryForObject(COUNTS, String.class))) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Replica did not catch up within " + timeout
+                        + ": primary " + expected + ", replica " + replicaJdbc.queryForObject(COUNTS, String.class));
+            }
+            Thread.sleep(200);
+        }
+        replicaJdbc.execute("ANALYZE");
+    }
+    
+    private static JdbcTemplate jdbc(EmbeddedDatabase database) {
+        return new JdbcTemplate(new DriverManagerDataSource(database.getJdbcUrl(), database.getUsername(), database.getPassword()));
+    }
+}
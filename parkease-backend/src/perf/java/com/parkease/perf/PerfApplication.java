@@ -0,0 +1,40 @@
+package com.parkease.perf;
+
+import com.parkease.ParkEaseApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the real application against an {@link EmbeddedDatabase} on a random port.
+ * The schema is created by the Flyway migrations, exactly as in production.
+ */
+public final class PerfApplication {
+    
+    private PerfApplication() {
+    }
+    
+    public static ConfigurableApplicationContext start(EmbeddedDatabase database, String... extraProperties) {
+        // DevTools would otherwise restart the context in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=" + database.getJdbcUrl(),
+                "spring.datasource.username=" + database.getUsername(),
+                "spring.datasource.password=" + database.getPassword(),
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "server.port=0",
+                "rate-limit.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.com.parkease=WARN",
+                "logging.level.org.springframework.security=WARN"));
+        properties.addAll(List.of(extraProperties));
+        
+        // Passed as command line arguments so they take precedence over application.yml
+        String[] args = properties.stream().map(property -> "--" + property).toArray(String[]::new);
+        return new SpringApplicationBuilder(ParkEaseApplication.class).run(args);
+    }
+}
@@ -0,0 +1,211 @@
+package com.parkease.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parkease.repository.ParkingSpotJdbcRepository;
+import com.parkease.repository.ParkingSpotRepository;
+import com.parkease.repository.ReservationEventJdbcRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Runs EXPLAIN on every hot query against a migrated and seeded embedded PostgreSQL and
+ * fails if a query is no longer answered from the index the V2 migration created for it.
+ *
+ * Sequential scans are disabled while explaining, so the check does not depend on table
+ * sizes: it catches queries that can no longer use their index at all, e.g. after a column
+ * gets wrapped in a function or an index is dropped or reshaped. With sequential scans off
+ * the planner may still walk a whole index instead, so an index only counts when its scan
+ * has an {@code Index Cond} on the index's leading column.
+ * Run with {@code mvn -Pplancheck verify}.
+ */
+public class PlanCheck {
+
+    private static final String CONFLICT_SQL = "SELECT * FROM reservations r WHERE r.spot_id = :spotId AND " +
+            "r.status = :status AND " +
+            "((r.start_time <= :startTime AND r.end_time > :startTime) OR " +
+            "(r.start_time < :endTime AND r.end_time >= :endTime) OR " +
+            "(r.start_time >= :startTime AND r.end_time <= :endTime))";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<String> failures = new ArrayList<>();
+
+    private final Map<String, List<String>> leadingColumns = new HashMap<>();
+
+    PlanCheck(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        DataSeeder seeder = new DataSeeder()
+                .users(500)
+                .spots(5_000)
+                .reservationsPerSpot(20)
+                .reviewsPerSpot(5)
+                .historyYears(1);
+
+        boolean passed;
+        try (SeededApplication application = SeededApplication.start(seeder)) {
+            JdbcTemplate jdbc = application.getBean(JdbcTemplate.class);
+            long spotId = jdbc.queryForObject("SELECT min(id) FROM parking_spots", Long.class);
+            long hostId = jdbc.queryForObject("SELECT host_id FROM parking_spots WHERE id = ?", Long.class, spotId);
+            long renterId = jdbc.queryForObject("SELECT min(id) FROM users", Long.class);
+            Timestamp start = Timestamp.valueOf(LocalDate.now().plusDays(3).atTime(10, 0));
+            Timestamp end = Timestamp.valueOf(LocalDate.now().plusDays(3).atTime(14, 0));
+
+            PlanCheck check = new PlanCheck(application.getBean(NamedParameterJdbcTemplate.class),
+                    application.getBean(TransactionTemplate.class));
+
+            check.expect("spot search by city", ParkingSpotRepository.SEARCH_SPOTS_SQL,
+                    search("Seattle", null, null, null), "idx_parking_spots_search");
+            check.expect("spot search with all filters", ParkingSpotRepository.SEARCH_SPOTS_SQL,
+                    search("Seattle", "GARAGE", new BigDecimal("5"), new BigDecimal("15")), "idx_parking_spots_search");
+            check.expect("projection search by city", ParkingSpotJdbcRepository.SEARCH_RESPONSES_SQL,
+                    search("Seattle", null, null, null).addValue("freeFrom", null, Types.TIMESTAMP)
+                            .addValue("freeUntil", null, Types.TIMESTAMP),
+                    "idx_parking_spots_search", "idx_reviews_spot");
+            check.expect("projection search free on a date", ParkingSpotJdbcRepository.SEARCH_RESPONSES_SQL,
+                    search("Seattle", "GARAGE", null, new BigDecimal("15")).addValue("freeFrom", start, Types.TIMESTAMP)
+                            .addValue("freeUntil", end, Types.TIMESTAMP),
+                    "idx_parking_spots_search", "idx_reviews_spot", "idx_reservations_spot_status_time");
+            check.expect("spots by host", "SELECT * FROM parking_spots WHERE host_id = :hostId",
+                    new MapSqlParameterSource("hostId", hostId), "idx_parking_spots_host");
+            check.expect("reservation conflict check", CONFLICT_SQL,
+                    new MapSqlParameterSource("spotId", spotId).addValue("status", "CONFIRMED")
+                            .addValue("startTime", start).addValue("endTime", end),
+                    "idx_reservations_spot_status_time");
+            check.expect("reservations by spot", "SELECT * FROM reservations WHERE spot_id = :spotId",
+                    new MapSqlParameterSource("spotId", spotId), "idx_reservations_spot_status_time");
+            check.expect("reservations by renter", "SELECT * FROM reservations WHERE renter_id = :renterId",
+                    new MapSqlParameterSource("renterId", renterId), "idx_reservations_renter");
+            check.expect("reservations by host",
+                    "SELECT r.* FROM reservations r JOIN parking_spots p ON p.id = r.spot_id WHERE p.host_id = :hostId",
+                    new MapSqlParameterSource("hostId", hostId),
+                    "idx_parking_spots_host", "idx_reservations_spot_status_time");
+            check.expect("reservations by spot, renter and status",
+                    "SELECT * FROM reservations WHERE spot_id = :spotId AND renter_id = :renterId AND status = :status",
+                    new MapSqlParameterSource("spotId", spotId).addValue("renterId", renterId)
+                            .addValue("status", "COMPLETED"),
+                    "idx_reservations_renter");
+            check.expect("due thumbnail jobs", ParkingSpotJdbcRepository.CLAIM_THUMBNAIL_RETRIES_SQL,
+                    new MapSqlParameterSource("limit", 20).addValue("leaseMillis", 600000L),
+                    "idx_parking_spots_thumbnail_retry");
+            check.expect("reservation history", ReservationEventJdbcRepository.BY_RESERVATION_SQL,
+                    new MapSqlParameterSource("reservationId", 1L), "idx_reservation_events_reservation");
+            check.expect("reservation journal replay", ReservationEventJdbcRepository.BY_HOST_AFTER_SQL,
+                    new MapSqlParameterSource("hostId", hostId).addValue("afterId", 0L)
+                            .addValue("settleMillis", 5000L).addValue("limit", 500),
+                    "idx_reservation_events_host");
+            check.expect("reviews by spot", "SELECT * FROM reviews WHERE spot_id = :spotId",
+                    new MapSqlParameterSource("spotId", spotId), "idx_reviews_spot");
+            check.expect("review by spot and renter",
+                    "SELECT * FROM reviews WHERE spot_id = :spotId AND renter_id = :renterId",
+                    new MapSqlParameterSource("spotId", spotId).addValue("renterId", renterId), "idx_reviews_spot");
+            check.expect("average rating", "SELECT AVG(rating), COUNT(*) FROM reviews WHERE spot_id = :spotId",
+                    new MapSqlParameterSource("spotId", spotId), "idx_reviews_spot");
+            check.expect("user by email", "SELECT * FROM users WHERE email = :email",
+                    new MapSqlParameterSource("email", "user1@perf.parkease"), "uk_users_email");
+
+            passed = check.failures.isEmpty();
+            if (!passed) {
+                System.out.println();
+                System.out.println(check.failures.size() + " hot quer" + (check.failures.size() == 1 ? "y" : "ies")
+                        + " no longer use their index:");
+                check.failures.forEach(failure -> System.out.println("  " + failure));
+            }
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static MapSqlParameterSource search(String city, String spotType, BigDecimal priceMin, BigDecimal priceMax) {
+        // Typed so that nulls are bound the way Hibernate binds them
+        return new MapSqlParameterSource()
+                .addValue("city", city, Types.VARCHAR)
+                .addValue("spotType", spotType, Types.VARCHAR)
+                .addValue("priceMin", priceMin, Types.NUMERIC)
+                .addValue("priceMax", priceMax, Types.NUMERIC);
+    }
+
+    void expect(String name, String sql, MapSqlParameterSource parameters, String... indexes) throws IOException {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.getJdbcTemplate().execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, parameters, String.class);
+        });
+
+        Map<String, List<String>> conditions = new LinkedHashMap<>();
+        collectIndexes(mapper.readTree(plan).get(0).get("Plan"), conditions);
+
+        Set<String> used = new LinkedHashSet<>();
+        for (Map.Entry<String, List<String>> entry : conditions.entrySet()) {
+            String index = entry.getKey();
+            used.add(entry.getValue().stream().anyMatch(condition -> onLeadingColumn(index, condition))
+                    ? index : index + " (full scan)");
+        }
+        List<String> missing = new ArrayList<>();
+        for (String index : indexes) {
+            if (!used.contains(index)) {
+                missing.add(index);
+            }
+        }
+        System.out.printf("%-40s %-4s %s%n", name, missing.isEmpty() ? "OK" : "FAIL", used.isEmpty() ? "(no index)" : used);
+        if (!missing.isEmpty()) {
+            failures.add(name + ": expected " + missing + ", plan uses " + (used.isEmpty() ? "no index" : used));
+        }
+    }
+
+    /**
+     * Whether {@code condition} refers to a column of the index's first key, which may be an
+     * expression such as {@code lower(city)}.
+     */
+    private boolean onLeadingColumn(String index, String condition) {
+        List<String> columns = leadingColumns.computeIfAbsent(index, name -> jdbcTemplate.queryForList(
+                "SELECT a.attname FROM pg_index i " +
+                        "JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum > 0 AND NOT a.attisdropped " +
+                        "WHERE c.relname = :index " +
+                        "AND pg_get_indexdef(i.indexrelid, 1, false) ~ ('\\m' || a.attname || '\\M')",
+                new MapSqlParameterSource("index", name), String.class));
+        return columns.stream().anyMatch(column -> Pattern.compile("\\b" + Pattern.quote(column) + "\\b")
+                .matcher(condition).find());
+    }
+
+    /**
+     * Index names in the plan, each with the {@code Index Cond} of its scans; a scan without
+     * one reads the whole index.
+     */
+    private static void collectIndexes(JsonNode node, Map<String, List<String>> indexes) {
+        if (node.hasNonNull("Index Name")) {
+            indexes.computeIfAbsent(node.get("Index Name").asText(), index -> new ArrayList<>())
+                    .add(node.hasNonNull("Index Cond") ? node.get("Index Cond").asText() : "");
+        }
+        if (node.has("Plans")) {
+            for (JsonNode child : node.get("Plans")) {
+                collectIndexes(child, indexes);
+            }
+        }
+    }
+}
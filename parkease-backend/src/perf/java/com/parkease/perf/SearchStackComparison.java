@@ -0,0 +1,160 @@
+package com.parkease.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-model comparison of the blocking search ({@code /api/spots}) and the non-blocking
+ * one ({@code /api/spots/stream}): a fixed number of clients each send their next search as
+ * soon as the previous one is answered, for increasing client counts. A level counts as
+ * sustained while fewer than 1% of requests fail and p99 stays within the budget; the
+ * report divides the highest sustained level and the peak throughput by the CPU count.
+ *
+ * Both stacks get database pools of the same size, so the difference is in how waiting
+ * requests are held, not in database capacity. The load generator and the embedded
+ * database share the machine with the application, so per-core numbers are only
+ * comparable between runs on the same hardware. The search result cache is switched off,
+ * as only the blocking endpoint would benefit from it.
+ * Run with {@code mvn -Psearchcompare verify}; settings are {@code -Dcompare.*} properties.
+ */
+public class SearchStackComparison {
+
+    private static final List<String> STACKS = List.of("search", "search_stream");
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("compare.concurrency", "16,64,256,1024").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        Duration step = Duration.parse("PT" + System.getProperty("compare.duration", "30s"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("compare.warmup", "15s"));
+        double maxP99Millis = Double.parseDouble(System.getProperty("compare.max-p99-ms", "1000"));
+        String profiles = System.getProperty("compare.profiles", "");
+        String report = System.getProperty("compare.report", "target/search-comparison.json");
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        DataSeeder seeder = new DataSeeder()
+                .users(2_000)
+                .spots(Integer.getInteger("compare.spots", 20_000))
+                .reservationsPerSpot(20)
+                .reviewsPerSpot(10)
+                .historyYears(1);
+
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "reactive.r2dbc.pool.max-size=10",
+                // Repeated searches would otherwise never reach the blocking stack's database
+                "spots.search-cache.enabled=false"));
+        if (!profiles.isEmpty()) {
+            properties.add("spring.profiles.active=" + profiles);
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("cores", cores);
+        document.put("maxP99Ms", maxP99Millis);
+        System.out.println("Starting embedded PostgreSQL and seeding " + seeder.getSpots() + " spots...");
+        try (SeededApplication application = SeededApplication.start(seeder, properties.toArray(new String[0]))) {
+            String baseUrl = "http://localhost:" + application.getPort();
+            List<Long> spotIds = application.getBean(JdbcTemplate.class)
+                    .queryForList("SELECT id FROM parking_spots WHERE is_available = true", Long.class);
+            TrafficMix traffic = new TrafficMix("search=1,search_stream=1", baseUrl, spotIds, List.of(), seeder.getUsers());
+
+            for (String stack : STACKS) {
+                System.out.printf("%n%s: warming up for %ss...%n", stack, warmup.toSeconds());
+                run(client, traffic, stack, levels[0], warmup, new EndpointStats(stack));
+
+                System.out.printf("%-8s %10s %10s %9s %9s %9s %8s%n",
+                        "clients", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+                Map<String, Object> rows = new LinkedHashMap<>();
+                int sustained = 0;
+                double peakThroughput = 0;
+                for (int level : levels) {
+                    EndpointStats stats = new EndpointStats(stack);
+                    long started = System.nanoTime();
+                    run(client, traffic, stack, level, step, stats);
+                    double seconds = (System.nanoTime() - started) / 1e9;
+                    stats.finish();
+
+                    Map<String, Object> row = stats.toReport(seconds);
+                    long requests = (long) row.get("requests");
+                    long errors = (long) row.get("serverErrors") + (long) row.get("failures");
+                    double throughput = (double) row.get("throughputPerSecond");
+                    boolean ok = requests > 0 && errors < requests * 0.01 && stats.percentileMillis(99) <= maxP99Millis;
+                    if (ok) {
+                        sustained = level;
+                        peakThroughput = Math.max(peakThroughput, throughput);
+                    }
+                    row.put("sustained", ok);
+                    rows.put(String.valueOf(level), row);
+                    System.out.printf("%-8d %10d %10.1f %9.2f %9.2f %9.2f %8d%s%n", level, requests, throughput,
+                            row.get("p50Ms"), row.get("p99Ms"), row.get("maxMs"), errors, ok ? "" : "  (not sustained)");
+                }
+
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("sustainedConcurrency", sustained);
+                summary.put("sustainedConcurrencyPerCore", Math.round(sustained * 100.0 / cores) / 100.0);
+                summary.put("peakThroughputPerCore", Math.round(peakThroughput * 100.0 / cores) / 100.0);
+                summary.put("levels", rows);
+                document.put(stack, summary);
+                System.out.printf("%s sustains %d concurrent searches (%.1f per core), peak %.1f req/s per core%n",
+                        stack, sustained, (double) sustained / cores, peakThroughput / cores);
+            }
+        }
+
+        File file = new File(report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, document);
+        System.out.println();
+        System.out.println("Report written to " + file.getPath());
+    }
+
+    /**
+     * Keeps {@code clients} requests in flight against {@code endpoint} until {@code duration}
+     * has elapsed.
+     */
+    static void run(HttpClient client, TrafficMix traffic, String endpoint, int clients, Duration duration,
+                    EndpointStats stats) throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < clients; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(traffic.build(endpoint),
+                                HttpResponse.BodyHandlers.discarding());
+                        stats.record(started, System.nanoTime(), response.statusCode());
+                    } catch (IOException e) {
+                        stats.recordFailure(started, System.nanoTime());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS);
+    }
+}
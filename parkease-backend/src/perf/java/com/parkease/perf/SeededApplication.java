@@ -0,0 +1,89 @@
+package com.parkease.perf;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An embedded database plus a running application context, seeded and ready for load.
+ * Optionally with a second embedded database as a logical replica that read-only
+ * transactions are routed to.
+ */
+public class SeededApplication implements AutoCloseable {
+    
+    private final EmbeddedDatabase database;
+    
+    private final EmbeddedDatabase replica;
+    
+    private final ConfigurableApplicationContext context;
+    
+    private SeededApplication(EmbeddedDatabase database, EmbeddedDatabase replica, ConfigurableApplicationContext context) {
+        this.database = database;
+        this.replica = replica;
+        this.context = context;
+    }
+    
+    public static SeededApplication start(DataSeeder seeder, String... extraProperties) throws IOException {
+        return start(seeder, false, extraProperties);
+    }
+    
+    public static SeededApplication start(DataSeeder seeder, boolean withReplica, String... extraProperties)
+            throws IOException {
+        EmbeddedDatabase database = EmbeddedDatabase.start(withReplica);
+        EmbeddedDatabase replica = null;
+        try {
+            List<String> properties = new ArrayList<>(List.of(extraProperties));
+            if (withReplica) {
+                replica = EmbeddedDatabase.start();
+                properties.add("datasource.replica.url=" + replica.getJdbcUrl());
+            }
+            ConfigurableApplicationContext context = PerfApplication.start(database, properties.toArray(new String[0]));
+            if (replica != null) {
+                LogicalReplica.subscribe(database, replica);
+            }
+            seeder.seed(context.getBean(JdbcTemplate.class));
+            if (replica != null) {
+                LogicalReplica.awaitCaughtUp(database, replica, Duration.ofMinutes(10));
+            }
+            return new SeededApplication(database, replica, context);
+        } catch (RuntimeException ex) {
+            closeAll(replica, database);
+            throw ex;
+        } catch (InterruptedException ex) {
+            closeAll(replica, database);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the replica", ex);
+        }
+    }
+    
+    private static void closeAll(EmbeddedDatabase... databases) throws IOException {
+        for (EmbeddedDatabase database : databases) {
+            if (database != null) {
+                database.close();
+            }
+        }
+    }
+    
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+    
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    public int getPort() {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        context.close();
+        // The subscriber goes first, otherwise it keeps reconnecting to a stopped publisher
+        closeAll(replica, database);
+    }
+}
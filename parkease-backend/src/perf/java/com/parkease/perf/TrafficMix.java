@@ -0,0 +1,155 @@
+package com.parkease.perf;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted mix of search, detail, booking and login requests, parsed from a spec such as
+ * {@code search=50,detail=35,booking=10,login=5}. {@code search_stream} is the same search
+ * against the non-blocking {@code /api/spots/stream} endpoint.
+ */
+public class TrafficMix {
+
+    private static final String[] SPOT_TYPES = {"GARAGE", "DRIVEWAY", "STREET", "LOT"};
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+
+    private final List<Long> spotIds;
+
+    private final List<String> tokens;
+
+    private final int users;
+
+    private final String[] endpoints;
+
+    private final int[] cumulativeWeights;
+
+    public TrafficMix(String spec, String baseUrl, List<Long> spotIds, List<String> tokens, int users) {
+        this.baseUrl = baseUrl;
+        this.spotIds = spotIds;
+        this.tokens = tokens;
+        this.users = users;
+
+        Map<String, Integer> weights = parse(spec);
+        this.endpoints = weights.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += weights.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public List<String> getEndpoints() {
+        return List.of(endpoints);
+    }
+
+    public String nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    public HttpRequest build(String endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (endpoint) {
+            case "search":
+                return get("/api/spots?" + searchQuery(random));
+            case "search_stream":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/spots/stream?" + searchQuery(random)))
+                        .timeout(TIMEOUT)
+                        .header("Accept", "application/x-ndjson")
+                        .GET()
+                        .build();
+            case "detail":
+                return get("/api/spots/" + randomSpotId());
+            case "booking": {
+                LocalDateTime start = LocalDate.now().plusDays(1 + random.nextInt(60)).atTime(6 + random.nextInt(14), 0);
+                String body = "{\"spotId\":" + randomSpotId() +
+                        ",\"startTime\":\"" + start + "\",\"endTime\":\"" + start.plusHours(1 + random.nextInt(6)) + "\"}";
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/reservations"))
+                        .timeout(TIMEOUT)
+                        .header("Content-Type", "application/json")
+                        .header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())))
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case "login":
+                return loginRequest(1 + random.nextInt(users));
+            default:
+                throw new IllegalArgumentException("Unknown endpoint in traffic mix: " + endpoint);
+        }
+    }
+
+    public HttpRequest loginRequest(int user) {
+        String body = "{\"email\":\"user" + user + "@perf.parkease\",\"password\":\"" + DataSeeder.PASSWORD + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String searchQuery(ThreadLocalRandom random) {
+        StringBuilder query = new StringBuilder("city=")
+                .append(encode(DataSeeder.CITIES[random.nextInt(DataSeeder.CITIES.length)]));
+        if (random.nextInt(3) == 0) {
+            query.append("&spotType=").append(SPOT_TYPES[random.nextInt(SPOT_TYPES.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            query.append("&priceMax=").append(5 + random.nextInt(15));
+        }
+        if (random.nextInt(5) == 0) {
+            query.append("&date=").append(LocalDate.now().plusDays(random.nextInt(14)));
+        }
+        return query.toString();
+    }
+    
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private Long randomSpotId() {
+        return spotIds.get(ThreadLocalRandom.current().nextInt(spotIds.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> parse(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        List<String> invalid = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                invalid.add(part);
+                continue;
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(pair[0].trim(), weight);
+            }
+        }
+        if (!invalid.isEmpty() || weights.isEmpty()) {
+            throw new IllegalArgumentException("Invalid traffic mix '" + spec + "', expected e.g. search=50,detail=50");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,65 @@
+package com.parkease.repository;
+
+import com.parkease.entity.Reservation;
+import com.parkease.enums.ReservationStatus;
+import com.parkease.perf.DataSeeder;
+import com.parkease.perf.SeededApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationRepository#findConflictingReservations} on an embedded PostgreSQL
+ * seeded with years of reservation history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ConflictQueryBenchmark {
+    
+    private SeededApplication application;
+    
+    private ReservationRepository reservationRepository;
+    
+    private List<Long> spotIds;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        application = SeededApplication.start(new DataSeeder().spots(5_000).reservationsPerSpot(200));
+        reservationRepository = application.getBean(ReservationRepository.class);
+        spotIds = application.getBean(JdbcTemplate.class).queryForList("SELECT id FROM parking_spots", Long.class);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        application.close();
+    }
+    
+    @Benchmark
+    public List<Reservation> findConflictingReservations() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long spotId = spotIds.get(random.nextInt(spotIds.size()));
+        LocalDateTime start = LocalDate.now().plusDays(random.nextInt(30)).atTime(18, 0);
+        return reservationRepository.findConflictingReservations(spotId, start, start.plusHours(3),
+                ReservationStatus.CONFIRMED);
+    }
+}
@@ -0,0 +1,52 @@
+package com.parkease.service;
+
+import com.parkease.entity.ParkingSpot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationPricingBenchmark {
+    
+    @Param({"90", "600", "4320"})
+    public long durationMinutes;
+    
+    private final ReservationService reservationService = new ReservationService();
+    
+    private ParkingSpot spot;
+    
+    private LocalDateTime start;
+    
+    private LocalDateTime end;
+    
+    @Setup
+    public void setUp() {
+        spot = new ParkingSpot();
+        spot.setPricePerHour(new BigDecimal("7.50"));
+        spot.setPricePerDay(new BigDecimal("45.00"));
+        start = LocalDateTime.of(2026, 3, 14, 18, 0);
+        end = start.plusMinutes(durationMinutes);
+    }
+    
+    @Benchmark
+    public BigDecimal calculatePrice() {
+        return reservationService.calculatePrice(spot, start, end);
+    }
+}
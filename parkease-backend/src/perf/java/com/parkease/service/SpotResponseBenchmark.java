@@ -0,0 +1,71 @@
+package com.parkease.service;
+
+import com.parkease.dto.ParkingSpotResponse;
+import com.parkease.entity.ParkingSpot;
+import com.parkease.perf.DataSeeder;
+import com.parkease.perf.SeededApplication;
+import com.parkease.repository.ParkingSpotRepository;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ParkingSpotService#convertToResponse} against an embedded database,
+ * including its per-spot rating queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SpotResponseBenchmark {
+    
+    private SeededApplication application;
+    
+    private ParkingSpotService parkingSpotService;
+    
+    private List<ParkingSpot> spots;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        application = SeededApplication.start(new DataSeeder().spots(2_000).reservationsPerSpot(20));
+        parkingSpotService = AopTestUtils.getUltimateTargetObject(application.getBean(ParkingSpotService.class));
+        
+        // Load a working set with hosts initialized, then use it detached
+        ParkingSpotRepository repository = application.getBean(ParkingSpotRepository.class);
+        spots = application.getBean(TransactionTemplate.class).execute(status -> {
+            List<ParkingSpot> loaded = new ArrayList<>(repository.findAll().subList(0, 500));
+            loaded.forEach(spot -> Hibernate.initialize(spot.getHost()));
+            return loaded;
+        });
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        application.close();
+    }
+    
+    @Benchmark
+    public ParkingSpotResponse convertToResponse() {
+        ParkingSpot spot = spots.get(ThreadLocalRandom.current().nextInt(spots.size()));
+        return parkingSpotService.convertToResponse(spot);
+    }
+}